@@ -0,0 +1,164 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load test for {@link HuffmanBatchService}: concurrent clients send small encode requests
+ * through the in-process API and through the loopback socket, and the throughput and p50/p99 latency are
+ * reported.
+ *
+ * Usage: {@code java midtermlabproject3.BatchServiceBenchmark [--clients N] [--requests N] [--length N] [--pipeline N]}
+ */
+public class BatchServiceBenchmark {
+    private final int clients;
+    private final int requestsPerClient;
+    private final int pipelineDepth;
+    private final String[] messages;
+    private final HuffmanCodec codec;
+    private long elapsedNanos; // Wall time of the last load test
+
+    /**
+     * Constructor for a load test.
+     *
+     * @param clients the number of concurrent clients
+     * @param requestsPerClient the number of requests sent by each client
+     * @param messageLength the number of characters per request
+     * @param pipelineDepth the number of requests each client keeps in flight
+     */
+    public BatchServiceBenchmark(int clients, int requestsPerClient, int messageLength, int pipelineDepth) {
+        this.clients = clients;
+        this.requestsPerClient = requestsPerClient;
+        this.pipelineDepth = pipelineDepth;
+        String corpus = BenchmarkCorpus.generate(BenchmarkCorpus.Distribution.ENGLISH, 0, 1 << 20, 42);
+        this.codec = HuffmanCodec.of(corpus);
+        this.messages = new String[1024];
+        for (int i = 0; i < messages.length; i++) {
+            int start = (i * 7919) % (corpus.length() - messageLength);
+            messages[i] = corpus.substring(start, start + messageLength);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = 16, requests = 20000, length = 64, pipeline = 8;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                case "--length" -> length = Integer.parseInt(args[i + 1]);
+                case "--pipeline" -> pipeline = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        new BatchServiceBenchmark(clients, requests, length, pipeline).run();
+    }
+
+    /**
+     * Runs the in-process and socket load tests, each once to warm up and once measured.
+     *
+     * @throws Exception if a client fails
+     */
+    public void run() throws Exception {
+        System.out.printf("%-12s %8s %14s %12s %12s %10s%n", "Mode", "Clients", "Requests/s", "p50 (us)", "p99 (us)", "Batch");
+        for (String mode : new String[]{"in-process", "socket"}) {
+            for (int round = 0; round < 2; round++) {
+                try (HuffmanBatchService service = new HuffmanBatchService(codec)) {
+                    long[] latencies = mode.equals("socket") ? runSocket(service) : runInProcess(service);
+                    if (round == 1)
+                        report(mode, latencies, service.getAverageBatchSize());
+                }
+            }
+        }
+    }
+
+    private long[] runInProcess(HuffmanBatchService service) throws Exception {
+        return runClients(client -> {
+            long[] latencies = new long[requestsPerClient];
+            List<CompletableFuture<EncodedBits>> inFlight = new ArrayList<>();
+            long[] starts = new long[pipelineDepth];
+            for (int i = 0; i < requestsPerClient; i += pipelineDepth) {
+                int batch = Math.min(pipelineDepth, requestsPerClient - i);
+                inFlight.clear();
+                for (int j = 0; j < batch; j++) {
+                    starts[j] = System.nanoTime();
+                    inFlight.add(service.encode(messages[(client * 31 + i + j) % messages.length]));
+                }
+                for (int j = 0; j < batch; j++) {
+                    inFlight.get(j).join();
+                    latencies[i + j] = System.nanoTime() - starts[j];
+                }
+            }
+            return latencies;
+        });
+    }
+
+    private long[] runSocket(HuffmanBatchService service) throws Exception {
+        try (HuffmanBatchServer server = new HuffmanBatchServer(service, 0)) {
+            Thread acceptor = new Thread(server::serve);
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            return runClients(client -> {
+                long[] latencies = new long[requestsPerClient];
+                long[] starts = new long[pipelineDepth];
+                try (HuffmanBatchServer.Client connection = new HuffmanBatchServer.Client(server.getPort())) {
+                    for (int i = 0; i < requestsPerClient; i += pipelineDepth) {
+                        int batch = Math.min(pipelineDepth, requestsPerClient - i);
+                        for (int j = 0; j < batch; j++) {
+                            starts[j] = System.nanoTime();
+                            connection.sendEncode(messages[(client * 31 + i + j) % messages.length]);
+                        }
+                        connection.flush();
+                        for (int j = 0; j < batch; j++) {
+                            connection.receiveEncoded();
+                            latencies[i + j] = System.nanoTime() - starts[j];
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return latencies;
+            });
+        }
+    }
+
+    private long[] runClients(ClientTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            long start = System.nanoTime();
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                int id = client;
+                results.add(pool.submit(() -> task.run(id)));
+            }
+            long[] all = new long[clients * requestsPerClient];
+            for (int client = 0; client < clients; client++) {
+                System.arraycopy(results.get(client).get(), 0, all, client * requestsPerClient, requestsPerClient);
+            }
+            elapsedNanos = System.nanoTime() - start;
+            return all;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void report(String mode, long[] latencies, double averageBatchSize) {
+        Arrays.sort(latencies);
+        System.out.printf("%-12s %8d %14.0f %12.1f %12.1f %10.1f%n", mode, clients, latencies.length / (elapsedNanos / 1e9),
+                latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3, averageBatchSize);
+    }
+
+    /**
+     * One client's workload, returning the latency of each request in nanoseconds.
+     */
+    private interface ClientTask {
+        long[] run(int client) throws Exception;
+    }
+}
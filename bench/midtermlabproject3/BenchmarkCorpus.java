@@ -0,0 +1,110 @@
+package midtermlabproject3;
+
+import java.util.Random;
+
+/**
+ * Generates reproducible benchmark texts with a controlled alphabet size and entropy.
+ */
+public class BenchmarkCorpus {
+    // Relative frequencies of ' ' and 'a'..'z' in English text, per mille
+    private static final int[] ENGLISH_WEIGHTS = {
+            182, 65, 12, 22, 35, 102, 18, 16, 50, 56, 1, 6, 33, 20, 57, 62, 15, 1, 50, 53, 75, 23, 8, 19, 1, 16, 1
+    };
+    private static final String ENGLISH_SYMBOLS = " abcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Symbol distribution of a generated text.
+     */
+    public enum Distribution {
+        /** Every symbol of the alphabet is equally likely: maximum entropy. */
+        UNIFORM,
+        /** The k-th most common symbol has probability proportional to 1/k. */
+        ZIPFIAN,
+        /** Letters and spaces with English frequencies; the alphabet size is fixed at 27. */
+        ENGLISH,
+        /** The k-th most common symbol has probability proportional to 1/2^k: about 2 bits of entropy. */
+        SKEWED,
+        /** A single repeated symbol: zero entropy. */
+        SINGLE_SYMBOL
+    }
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Generates a text.
+     *
+     * @param distribution the symbol distribution
+     * @param alphabetSize the number of distinct symbols, ignored for {@link Distribution#ENGLISH} and {@link Distribution#SINGLE_SYMBOL}
+     * @param length the number of characters
+     * @param seed the random seed, so runs are reproducible
+     * @return the generated text
+     */
+    public static String generate(Distribution distribution, int alphabetSize, int length, long seed) {
+        Random random = new Random(seed);
+        char[] symbols;
+        double[] weights;
+
+        switch (distribution) {
+            case UNIFORM, ZIPFIAN, SKEWED -> {
+                symbols = new char[alphabetSize];
+                weights = new double[alphabetSize];
+                for (int i = 0; i < alphabetSize; i++) {
+                    symbols[i] = (char) (alphabetSize <= 95 ? ' ' + i : 0x100 + i); // Printable ASCII when it fits
+                    weights[i] = switch (distribution) {
+                        case UNIFORM -> 1;
+                        case ZIPFIAN -> 1.0 / (i + 1);
+                        default -> Math.pow(0.5, i);
+                    };
+                }
+            }
+            case ENGLISH -> {
+                symbols = ENGLISH_SYMBOLS.toCharArray();
+                weights = new double[ENGLISH_WEIGHTS.length];
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] = ENGLISH_WEIGHTS[i];
+                }
+            }
+            default -> {
+                return "e".repeat(length);
+            }
+        }
+
+        double[] cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            double r = random.nextDouble() * total;
+            int low = 0, high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] <= r) low = middle + 1; else high = middle;
+            }
+            text[i] = symbols[low];
+        }
+        return new String(text);
+    }
+
+    /**
+     * Computes the Shannon entropy of a text.
+     *
+     * @param text the text to analyze
+     * @return the entropy in bits per character
+     */
+    public static double entropy(String text) {
+        long[] counts = new FrequencyCounter().count(text);
+        double entropy = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                double p = (double) count / text.length();
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        return entropy;
+    }
+}
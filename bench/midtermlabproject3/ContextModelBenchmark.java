@@ -0,0 +1,73 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares the order-1 {@link ContextHuffmanCodec} with the order-0 {@link HuffmanCodec} on the same texts:
+ * compressed size including headers, the ratio gain, and encode/decode throughput.
+ *
+ * Usage: {@code java midtermlabproject3.ContextModelBenchmark [text files...]}. Without arguments the
+ * files under {@code res/} and the synthetic English and Zipfian corpora are used.
+ */
+public class ContextModelBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> corpora = new LinkedHashMap<>();
+        if (args.length > 0) {
+            for (String file : args) {
+                corpora.put(Paths.get(file).getFileName().toString(), Files.readString(Paths.get(file), StandardCharsets.UTF_8));
+            }
+        } else {
+            StringBuilder res = new StringBuilder();
+            for (Path file : BatchCompressor.findInputs("res")) {
+                res.append(Files.readString(file, StandardCharsets.UTF_8));
+            }
+            corpora.put("res", res.toString());
+            corpora.put("english", BenchmarkCorpus.generate(BenchmarkCorpus.Distribution.ENGLISH, 0, 1 << 20, 42));
+            corpora.put("zipfian", BenchmarkCorpus.generate(BenchmarkCorpus.Distribution.ZIPFIAN, 256, 1 << 20, 42));
+        }
+
+        System.out.printf("%-16s %10s %12s %12s %8s %9s %12s %12s %12s %12s%n", "Corpus", "Chars", "Order-0 B", "Order-1 B",
+                "Gain", "Contexts", "Enc0 MB/s", "Enc1 MB/s", "Dec0 MB/s", "Dec1 MB/s");
+        for (Map.Entry<String, String> corpus : corpora.entrySet()) {
+            run(corpus.getKey(), corpus.getValue());
+        }
+    }
+
+    private static void run(String name, String text) {
+        HuffmanCodec order0 = HuffmanCodec.of(text);
+        ContextHuffmanCodec order1 = ContextHuffmanCodec.of(text);
+        EncodedBits bits0 = order0.encode(text);
+        EncodedBits bits1 = order1.encode(text);
+        if (!order1.decode(bits1, text.length()).equals(text))
+            throw new IllegalStateException("Order-1 round trip failed for " + name + ".");
+
+        long size0 = bits0.getData().length + order0.getCodebook().getHeaderSize();
+        long size1 = bits1.getData().length + order1.getHeaderSize();
+        System.out.printf("%-16s %10d %12d %12d %7.2f%% %9d %12.1f %12.1f %12.1f %12.1f%n", name, text.length(), size0, size1,
+                100.0 * (size0 - size1) / size0, order1.getContextCount(),
+                throughput(text, () -> order0.encode(text)), throughput(text, () -> order1.encode(text)),
+                throughput(text, () -> order0.decode(bits0, text.length())), throughput(text, () -> order1.decode(bits1, text.length())));
+    }
+
+    /**
+     * Runs an operation repeatedly and reports the best throughput, in megabytes of UTF-16 text per second.
+     */
+    private static double throughput(String text, Supplier<Object> operation) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            operation.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return 2.0 * text.length() * 1e3 / best;
+    }
+}
@@ -0,0 +1,272 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite covering every stage of the Huffman pipeline.
+ *
+ * Each benchmark runs on generated corpora with a controlled alphabet size and entropy, and reports
+ * throughput in MB/s of input text, time per operation and bytes allocated per operation (measured with the
+ * per-thread allocation counter, like a GC profiler's normalized allocation rate).
+ *
+ * Usage: {@code java midtermlabproject3.HuffmanBenchmark [--size N] [--alphabet K] [--warmup N] [--iterations N] [--filter text]}
+ */
+public class HuffmanBenchmark {
+    private static volatile Object sink; // Keeps results alive so the JIT can't remove the work
+
+    private final int size;
+    private final int alphabetSize;
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final String filter;
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Constructor for a benchmark run.
+     *
+     * @param size the number of characters in each corpus
+     * @param alphabetSize the alphabet size of the uniform and Zipfian corpora
+     * @param warmupIterations the number of untimed iterations per benchmark
+     * @param measurementIterations the number of timed iterations per benchmark
+     * @param filter only benchmarks whose name contains this text are run
+     */
+    public HuffmanBenchmark(int size, int alphabetSize, int warmupIterations, int measurementIterations, String filter) {
+        this.size = size;
+        this.alphabetSize = alphabetSize;
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.filter = filter;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    public static void main(String[] args) {
+        int size = 1 << 20, alphabetSize = 64, warmup = 5, iterations = 10;
+        String filter = "";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                case "--alphabet" -> alphabetSize = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--iterations" -> iterations = Integer.parseInt(args[i + 1]);
+                case "--filter" -> filter = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        new HuffmanBenchmark(size, alphabetSize, warmup, iterations, filter).run();
+    }
+
+    /**
+     * Runs all benchmarks on all corpora and prints one line per result.
+     */
+    public void run() {
+        System.out.printf("%-28s %-14s %8s %12s %14s %14s%n", "Benchmark", "Corpus", "H (bits)", "MB/s", "ns/op", "B/op");
+
+        for (BenchmarkCorpus.Distribution distribution : BenchmarkCorpus.Distribution.values()) {
+            String text = BenchmarkCorpus.generate(distribution, alphabetSize, size, 42);
+            String corpus = distribution.name().toLowerCase();
+            double entropy = BenchmarkCorpus.entropy(text);
+
+            for (Map.Entry<String, Supplier<Object>> benchmark : benchmarks(text).entrySet()) {
+                if (!benchmark.getKey().contains(filter))
+                    continue;
+
+                Result result = measure(benchmark.getValue());
+                System.out.printf("%-28s %-14s %8.3f %12.1f %14.0f %14.0f%n", benchmark.getKey(), corpus, entropy,
+                        text.length() / 1e6 / (result.nanosPerOp / 1e9), result.nanosPerOp, result.bytesPerOp);
+            }
+        }
+    }
+
+    /**
+     * Creates the benchmarks for one corpus. The inputs of each stage are prepared up front,
+     * so every benchmark times a single stage.
+     *
+     * @param text the corpus
+     * @return the benchmarks by name, in pipeline order
+     */
+    protected Map<String, Supplier<Object>> benchmarks(String text) {
+        HuffmanEncoder huffman = new HuffmanEncoder();
+        Map<Character, Long> frequencyTable = huffman.buildFrequencyTable(text);
+        Node root = huffman.buildHuffmanTree(frequencyTable);
+        Map<Character, String> huffmanCode = new HashMap<>();
+        huffman.buildHuffmanCode(root, "", huffmanCode);
+        String encoded = huffman.encode(text, huffmanCode);
+        EncodedBits bits = huffman.encodeToBits(text, huffmanCode);
+        TableDecoder decoder = new TableDecoder(huffmanCode);
+        MultiSymbolDecoder multiDecoder = new MultiSymbolDecoder(huffmanCode);
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        ByteHuffmanCodec byteCodec = ByteHuffmanCodec.of(utf8);
+        EncodedBits byteBits = byteCodec.encode(utf8);
+        byte[] adaptive = adaptiveEncode(utf8);
+        HuffmanBlockCompressor blockCompressor = new HuffmanBlockCompressor(ForkJoinPool.commonPool(), 64 << 10);
+        SelectiveBlockCompressor selectiveCompressor = new SelectiveBlockCompressor(ForkJoinPool.commonPool(), 64 << 10);
+        HuffmanCodec codec = HuffmanCodec.fromFrequencyTable(frequencyTable);
+        String[] messages = new String[(text.length() + 63) / 64];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = text.substring(i * 64, Math.min(text.length(), i * 64 + 64));
+        }
+        MetricsRecorder recorder = new MetricsRecorder();
+        StaticCodebook staticCodebook = StaticCodebook.train(1, text.substring(0, Math.min(text.length(), 1 << 16)));
+        EncodedBits codecBits = codec.encode(text);
+        byte[] interleaved = codec.encodeInterleaved(text);
+        SeekIndex seekIndex = codec.buildSeekIndex(text, SeekIndex.DEFAULT_INTERVAL);
+        int sliceStart = Math.max(0, text.length() - 1024);
+        HuffmanBufferEncoder bufferEncoder = codec.newEncoder();
+        HuffmanBufferDecoder bufferDecoder = codec.newDecoder();
+        ByteBuffer encodeBuffer = ByteBuffer.allocate(8 << 10);
+        ByteBuffer codecBuffer = ByteBuffer.wrap(codecBits.getData());
+        CharBuffer decodeBuffer = CharBuffer.allocate(8 << 10);
+
+        Map<String, Supplier<Object>> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("buildFrequencyTable", () -> huffman.buildFrequencyTable(text));
+        benchmarks.put("buildHuffmanTree", () -> huffman.buildHuffmanTree(frequencyTable));
+        benchmarks.put("buildHuffmanCode", () -> {
+            Map<Character, String> codes = new HashMap<>();
+            huffman.buildHuffmanCode(root, "", codes);
+            return codes;
+        });
+        benchmarks.put("encode", () -> huffman.encode(text, huffmanCode));
+        benchmarks.put("encodeToBits", () -> huffman.encodeToBits(text, huffmanCode));
+        benchmarks.put("decode", () -> huffman.decode(encoded, root));
+        benchmarks.put("decode.treeWalk", () -> huffman.decode(bits, root));
+        benchmarks.put("decode.table", () -> decoder.decode(bits));
+        benchmarks.put("decode.multi", () -> multiDecoder.decode(bits));
+        benchmarks.put("decode.multi.length", () -> multiDecoder.decode(bits, text.length()));
+        benchmarks.put("decode.codec", () -> codec.decode(codecBits, text.length()));
+        benchmarks.put("encode.buffer", () -> encodeBuffered(bufferEncoder, text, encodeBuffer));
+        benchmarks.put("decode.buffer", () -> decodeBuffered(bufferDecoder, codecBuffer, decodeBuffer, text.length()));
+        benchmarks.put("decode.interleaved", () -> codec.decodeInterleaved(interleaved, text.length()));
+        benchmarks.put("decodeRange.last1k", () -> codec.decodeRange(codecBits, seekIndex, sliceStart, text.length()));
+        benchmarks.put("bytes.encode", () -> byteCodec.encode(utf8));
+        benchmarks.put("bytes.decode", () -> byteCodec.decode(byteBits, utf8.length));
+        benchmarks.put("blocks.shared", () -> blockCompressor.compress(utf8));
+        benchmarks.put("blocks.selective", () -> selectiveCompressor.compress(utf8));
+        benchmarks.put("adaptive.encode", () -> adaptiveEncode(utf8));
+        benchmarks.put("adaptive.decode", () -> adaptiveDecode(adaptive, utf8.length));
+        // The same small-message workload with instrumentation off and with a metrics listener registered
+        benchmarks.put("metrics.off", () -> encodeAll(codec, messages));
+        benchmarks.put("metrics.on", () -> {
+            HuffmanInstrumentation.setListener(recorder);
+            try {
+                return encodeAll(codec, messages);
+            } finally {
+                HuffmanInstrumentation.setListener(null);
+            }
+        });
+        // Small messages with a histogram and tree per message versus a pre-trained static codebook
+        benchmarks.put("messages.perMessageCodec", () -> {
+            long total = 0;
+            for (String message : messages) {
+                total += HuffmanCodec.of(message).encode(message).getBitLength();
+            }
+            return total;
+        });
+        benchmarks.put("messages.staticCodebook", () -> {
+            long total = 0;
+            for (String message : messages) {
+                total += staticCodebook.encodeMessage(message).length;
+            }
+            return total;
+        });
+        benchmarks.put("calculateEfficiency", () -> huffman.calculateEfficiency(text, huffmanCode, 8));
+        benchmarks.put("compressionAnalysis", () -> CompressionAnalysis.of(frequencyTable, huffmanCode));
+        return benchmarks;
+    }
+
+    private static long encodeAll(HuffmanCodec codec, String[] messages) {
+        long bits = 0;
+        for (String message : messages) {
+            bits += codec.encode(message).getBitLength();
+        }
+        return bits;
+    }
+
+    /**
+     * Encodes a text through a fixed output buffer, reusing it whenever it fills up, as a stream would.
+     * Returns the encoder's reused result rather than a count, so the benchmark itself doesn't allocate.
+     */
+    private static CodingResult encodeBuffered(HuffmanBufferEncoder encoder, String text, ByteBuffer out) {
+        encoder.reset();
+        for (int from = 0; from < text.length(); out.clear()) {
+            from += encoder.encode(text, from, text.length(), out).getSymbols();
+        }
+        CodingResult result;
+        while ((result = encoder.finish(out)).isOverflow()) {
+            out.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Decodes a text through a fixed output buffer, reusing it whenever it fills up.
+     */
+    private static CodingResult decodeBuffered(HuffmanBufferDecoder decoder, ByteBuffer in, CharBuffer out, int length) {
+        decoder.reset();
+        in.clear();
+        CodingResult result = null;
+        for (int remaining = length; remaining > 0; out.clear()) {
+            out.limit(Math.min(out.capacity(), remaining));
+            result = decoder.decode(in, out);
+            remaining -= result.getSymbols();
+        }
+        return result;
+    }
+
+    private static byte[] adaptiveEncode(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length);
+        try (AdaptiveHuffmanOutputStream out = new AdaptiveHuffmanOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] adaptiveDecode(byte[] compressed, int length) {
+        try (AdaptiveHuffmanInputStream in = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readNBytes(length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Result measure(Supplier<Object> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            sink = operation.get();
+        }
+
+        // A primitive array, so that timing itself allocates nothing and zero-allocation operations report 0 B/op
+        long[] times = new long[measurementIterations];
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < measurementIterations; i++) {
+            long start = System.nanoTime();
+            sink = operation.get();
+            times[i] = System.nanoTime() - start;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // The median is less sensitive to GC pauses and scheduling noise than the mean
+        Arrays.sort(times);
+        return new Result(times[times.length / 2], (double) allocated / measurementIterations);
+    }
+
+    /**
+     * Median time and average allocation of one operation.
+     */
+    private record Result(double nanosPerOp, double bytesPerOp) {
+    }
+}
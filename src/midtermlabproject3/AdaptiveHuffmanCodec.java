@@ -0,0 +1,213 @@
+package midtermlabproject3;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive (FGK) Huffman model that updates its tree after every symbol, so data can be compressed in a
+ * single pass without a frequency table or a header.
+ *
+ * The encoder and decoder each start with a tree holding only the NYT ("not yet transmitted") node and
+ * apply the same update after every symbol, so they stay in sync. The first occurrence of a symbol is sent
+ * as the NYT code followed by the symbol in {@value #SYMBOL_BITS} raw bits.
+ *
+ * Nodes are stored in flat arrays indexed by their implicit FGK number, so a position's weight never
+ * decreases as the number grows (the sibling property). Swapping two nodes moves their subtrees but keeps
+ * the positions, which makes finding the highest-numbered node of a weight class a short upward scan.
+ *
+ * Besides the 256 byte values the alphabet holds {@link #END_OF_STREAM} and {@link #FLUSH}, which lets a
+ * stream end without knowing its length up front and be flushed to a byte boundary mid-stream.
+ *
+ * Instances are stateful and not thread-safe; use one per stream and direction.
+ */
+public class AdaptiveHuffmanCodec {
+    /** Symbol that marks the end of the stream. */
+    public static final int END_OF_STREAM = 256;
+
+    /** Symbol after which the encoder pads to a byte boundary, so the bytes written so far are decodable. */
+    public static final int FLUSH = 257;
+
+    /** Number of symbols in the alphabet: the byte values plus the two control symbols. */
+    public static final int ALPHABET_SIZE = 258;
+
+    /** Number of raw bits used to send a symbol the first time it appears. */
+    public static final int SYMBOL_BITS = 9;
+
+    private static final int NYT = -2;      // Symbol value of the NYT leaf
+    private static final int INTERNAL = -1; // Symbol value of internal nodes
+    private static final int ROOT = 2 * ALPHABET_SIZE; // Positions below the root hold at most 2 * ALPHABET_SIZE nodes
+
+    private final long[] weight = new long[ROOT + 1];
+    private final int[] parent = new int[ROOT + 1];
+    private final int[] left = new int[ROOT + 1];
+    private final int[] right = new int[ROOT + 1];
+    private final int[] symbol = new int[ROOT + 1];
+    private final int[] leaf = new int[ALPHABET_SIZE]; // Position of each symbol's leaf, or -1 if not yet seen
+    private final int[] path = new int[ROOT + 1];      // Scratch space for the bits of one code
+    private int nyt;
+
+    /**
+     * Constructor for a model in its initial state, holding only the NYT node.
+     */
+    public AdaptiveHuffmanCodec() {
+        reset();
+    }
+
+    /**
+     * Resets the model to its initial state, e.g. to start a new stream.
+     */
+    public void reset() {
+        Arrays.fill(leaf, -1);
+        Arrays.fill(weight, 0);
+        nyt = ROOT;
+        symbol[ROOT] = NYT;
+        parent[ROOT] = -1;
+        left[ROOT] = -1;
+        right[ROOT] = -1;
+    }
+
+    /**
+     * Encodes one symbol and updates the model.
+     *
+     * @param value the symbol, a byte value (0-255), {@link #END_OF_STREAM} or {@link #FLUSH}
+     * @param out the bit writer to write to
+     * @throws IllegalArgumentException if the value isn't in the alphabet
+     */
+    public void encode(int value, BitWriter out) {
+        if (value < 0 || value >= ALPHABET_SIZE)
+            throw new IllegalArgumentException("Symbol " + value + " isn't in the alphabet.");
+
+        int node = leaf[value];
+        if (node >= 0) {
+            writePath(node, out);
+        } else {
+            writePath(nyt, out);
+            out.writeBits(value, SYMBOL_BITS);
+        }
+        update(value);
+    }
+
+    /**
+     * Decodes one symbol and updates the model.
+     *
+     * @param in the bit reader to read from
+     * @return the symbol, a byte value (0-255), {@link #END_OF_STREAM} or {@link #FLUSH}
+     * @throws InvalidEncodedTextException if a new symbol isn't in the alphabet
+     */
+    public int decode(BitReader in) throws InvalidEncodedTextException {
+        int node = ROOT;
+        while (symbol[node] == INTERNAL) {
+            node = in.readBit() == 0 ? left[node] : right[node];
+        }
+
+        int value = symbol[node];
+        if (value == NYT) {
+            value = in.readBits(SYMBOL_BITS);
+            if (value >= ALPHABET_SIZE || leaf[value] >= 0)
+                throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+        }
+        update(value);
+        return value;
+    }
+
+    /**
+     * Gets the current code length of a symbol.
+     *
+     * @param value the symbol
+     * @return the depth of the symbol's leaf, or -1 if the symbol hasn't been seen yet
+     */
+    public int getLength(int value) {
+        int node = leaf[value];
+        if (node < 0)
+            return -1;
+
+        int length = 0;
+        for (; node != ROOT; node = parent[node]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Gets the number of symbols seen so far, including control symbols.
+     *
+     * @return the total weight of the tree
+     */
+    public long getSymbolsSeen() {
+        return weight[ROOT];
+    }
+
+    private void writePath(int node, BitWriter out) {
+        // Collect the bits from the leaf up, then write them root first in chunks of up to 32
+        int length = 0;
+        for (; node != ROOT; node = parent[node]) {
+            path[length++] = right[parent[node]] == node ? 1 : 0;
+        }
+        while (length > 0) {
+            int chunk = Math.min(32, length);
+            int bits = 0;
+            for (int i = 0; i < chunk; i++) {
+                bits = (bits << 1) | path[--length];
+            }
+            out.writeBits(bits, chunk);
+        }
+    }
+
+    private void update(int value) {
+        int node = leaf[value];
+        if (node < 0) {
+            // Split the NYT node into a new NYT (left) and the new symbol's leaf (right)
+            int oldNyt = nyt;
+            nyt = oldNyt - 2;
+            node = oldNyt - 1;
+            initLeaf(nyt, NYT, oldNyt);
+            initLeaf(node, value, oldNyt);
+            leaf[value] = node;
+            symbol[oldNyt] = INTERNAL;
+            left[oldNyt] = nyt;
+            right[oldNyt] = node;
+        }
+
+        while (node != ROOT) {
+            // Highest-numbered node with the same weight, which is never the root unless it is the parent
+            int leader = node;
+            while (leader + 1 < ROOT && weight[leader + 1] == weight[node]) {
+                leader++;
+            }
+            if (leader != node && leader != parent[node]) {
+                swap(node, leader);
+                node = leader;
+            }
+            weight[node]++;
+            node = parent[node];
+        }
+        weight[ROOT]++;
+    }
+
+    private void initLeaf(int node, int value, int parentNode) {
+        symbol[node] = value;
+        weight[node] = 0;
+        parent[node] = parentNode;
+        left[node] = -1;
+        right[node] = -1;
+    }
+
+    private void swap(int a, int b) {
+        // Positions (and so weights and parents) stay; the contents and subtrees move
+        int s = symbol[a]; symbol[a] = symbol[b]; symbol[b] = s;
+        int l = left[a]; left[a] = left[b]; left[b] = l;
+        int r = right[a]; right[a] = right[b]; right[b] = r;
+        relink(a);
+        relink(b);
+    }
+
+    private void relink(int node) {
+        if (symbol[node] == INTERNAL) {
+            parent[left[node]] = node;
+            parent[right[node]] = node;
+        } else if (symbol[node] == NYT) {
+            nyt = node;
+        } else {
+            leaf[symbol[node]] = node;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package midtermlabproject3;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Input stream that decompresses bytes written by an {@link AdaptiveHuffmanOutputStream}.
+ *
+ * Bytes are decoded as their bits arrive, and a read returns early at a flush point, so a reader can
+ * follow a live stream with the latency of the writer's flushes.
+ */
+public class AdaptiveHuffmanInputStream extends InputStream {
+    private final InputStream in;
+    private final BitReader bits;
+    private final AdaptiveHuffmanCodec codec = new AdaptiveHuffmanCodec();
+    private boolean endOfStream;
+
+    /**
+     * Constructor for a decompressing stream.
+     *
+     * @param in the input stream that provides the compressed bits
+     */
+    public AdaptiveHuffmanInputStream(InputStream in) {
+        this.in = in;
+        this.bits = new BitReader(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (!endOfStream) {
+            int symbol = next();
+            if (symbol < AdaptiveHuffmanCodec.END_OF_STREAM)
+                return symbol;
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+
+        int count = 0;
+        while (count < length && !endOfStream) {
+            int symbol = next();
+            if (symbol < AdaptiveHuffmanCodec.END_OF_STREAM) {
+                data[offset + count++] = (byte) symbol;
+            } else if (symbol == AdaptiveHuffmanCodec.FLUSH && count > 0) {
+                break; // Hand over what the writer flushed instead of blocking for more
+            }
+        }
+        return count == 0 && endOfStream ? -1 : count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int next() throws IOException {
+        try {
+            // Every code is at least one bit long, so running out of bits before the end symbol means truncation
+            if (!bits.hasMoreBits())
+                throw new EOFException("The compressed stream ended before its end marker.");
+
+            int symbol = codec.decode(bits);
+            if (symbol == AdaptiveHuffmanCodec.FLUSH) {
+                bits.alignToByte();
+            } else if (symbol == AdaptiveHuffmanCodec.END_OF_STREAM) {
+                endOfStream = true;
+            }
+            return symbol;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (InvalidEncodedTextException e) {
+            throw new IOException("Invalid compressed stream: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Output stream that compresses bytes in a single pass with an {@link AdaptiveHuffmanCodec}.
+ *
+ * No frequency table or header is written, so compression can start with the first byte of an unbounded
+ * input such as a socket or a log being tailed. {@link #flush()} encodes a {@link AdaptiveHuffmanCodec#FLUSH}
+ * symbol and pads to a byte boundary, so everything written so far can be decoded right away;
+ * {@link #close()} ends the stream with {@link AdaptiveHuffmanCodec#END_OF_STREAM}.
+ */
+public class AdaptiveHuffmanOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final BitWriter bits;
+    private final AdaptiveHuffmanCodec codec = new AdaptiveHuffmanCodec();
+    private boolean closed;
+
+    /**
+     * Constructor for a compressing stream.
+     *
+     * @param out the output stream that receives the compressed bits
+     */
+    public AdaptiveHuffmanOutputStream(OutputStream out) {
+        this.out = out;
+        this.bits = new BitWriter(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        try {
+            codec.encode(b & 0xFF, bits);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+        try {
+            for (int i = offset; i < offset + length; i++) {
+                codec.encode(data[i] & 0xFF, bits);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Makes all bytes written so far decodable by encoding a flush symbol, padding to a byte boundary and
+     * flushing the underlying stream. Each flush costs a few bits, so flush only when latency matters.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        try {
+            codec.encode(AdaptiveHuffmanCodec.FLUSH, bits);
+            bits.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Ends the stream and closes the underlying stream.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+        try {
+            codec.encode(AdaptiveHuffmanCodec.END_OF_STREAM, bits);
+            bits.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("The stream is closed.");
+    }
+}
@@ -0,0 +1,212 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Headless compressor for many files at once, e.g. every file of a directory.
+ *
+ * Each file is compressed with its own {@link HuffmanFileCompressor} on a work-stealing {@link ForkJoinPool},
+ * so large and small files balance across the workers. The file compressor streams through fixed-size
+ * buffers, so memory in flight is bounded by the parallelism rather than by the file sizes. Every file
+ * produces a {@link Result}, including files that failed, which can be printed as a CSV report.
+ */
+public class BatchCompressor implements AutoCloseable {
+    /** Extension appended to the name of each compressed file. */
+    public static final String EXTENSION = ".huf";
+
+    /** Header line of the report written by {@link #printReport}. */
+    public static final String REPORT_HEADER = "file,original_bytes,compressed_bytes,ratio,mb_per_s,elapsed_ms,status";
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for a batch compressor with one worker per available processor.
+     */
+    public BatchCompressor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for a batch compressor with the given number of workers.
+     *
+     * @param parallelism the number of files compressed at the same time, at least 1
+     */
+    public BatchCompressor(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive.");
+
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Finds the files to compress: every regular file under a directory, or every file matching a glob
+     * such as {@code res/*.txt}. The glob is matched against paths as written, from the directory before
+     * the first wildcard.
+     *
+     * @param pattern a directory or a glob
+     * @return the matching files in sorted order
+     * @throws NoSuchFileException if the pattern has no wildcard and doesn't exist, or its base directory
+     *         doesn't exist
+     * @throws IOException if a directory can't be listed
+     */
+    public static List<Path> findInputs(String pattern) throws IOException {
+        if (!hasWildcard(pattern) && !Files.exists(Paths.get(pattern)))
+            throw new NoSuchFileException(pattern, null, "No such file or directory");
+
+        Path base = baseDirectory(pattern);
+        if (!Files.isDirectory(base))
+            throw new NoSuchFileException(base.toString(), null, "No such directory");
+        PathMatcher matcher = Files.isDirectory(Paths.get(pattern)) ? path -> true
+                : FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+        try (Stream<Path> files = Files.walk(base)) {
+            return files.filter(Files::isRegularFile).filter(matcher::matches).sorted().toList();
+        }
+    }
+
+    /**
+     * Gets the directory that {@link #findInputs(String)} searches, used to name the outputs.
+     *
+     * @param pattern a directory or a glob
+     * @return the directory itself, or the part of the glob before the first wildcard
+     */
+    public static Path baseDirectory(String pattern) {
+        if (Files.isDirectory(Paths.get(pattern)))
+            return Paths.get(pattern);
+
+        int wildcard = firstWildcard(pattern);
+        Path parent = Paths.get(pattern.substring(0, wildcard) + "x").getParent();
+        return parent != null ? parent : Paths.get("");
+    }
+
+    private static boolean hasWildcard(String pattern) {
+        return firstWildcard(pattern) < pattern.length();
+    }
+
+    private static int firstWildcard(String pattern) {
+        int wildcard = 0;
+        while (wildcard < pattern.length() && "*?[{".indexOf(pattern.charAt(wildcard)) < 0) {
+            wildcard++;
+        }
+        return wildcard;
+    }
+
+    /**
+     * Starts compressing the files. Each output is written to the output directory under the input's path
+     * relative to the base directory, with {@link #EXTENSION} appended.
+     *
+     * @param base the directory the inputs are named relative to
+     * @param inputs the files to compress
+     * @param outputDirectory the directory to write the compressed files to
+     * @return one future per input, in the same order; the futures never complete exceptionally
+     */
+    public List<CompletableFuture<Result>> compressAll(Path base, List<Path> inputs, Path outputDirectory) {
+        List<CompletableFuture<Result>> results = new ArrayList<>(inputs.size());
+        for (Path input : inputs) {
+            Path output = outputDirectory.resolve(base.relativize(input).toString() + EXTENSION);
+            results.add(CompletableFuture.supplyAsync(() -> compress(input, output), pool));
+        }
+        return results;
+    }
+
+    /**
+     * Prints a CSV report with one line per file, in input order, as soon as each file is done.
+     *
+     * @param results the futures returned by {@link #compressAll}
+     * @param out the stream to print to
+     * @return the number of files that failed
+     */
+    public static int printReport(List<CompletableFuture<Result>> results, PrintStream out) {
+        out.println(REPORT_HEADER);
+        int failures = 0;
+        for (CompletableFuture<Result> future : results) {
+            Result result = future.join();
+            if (result.error() != null)
+                failures++;
+            out.println(result.toCsv());
+        }
+        out.flush();
+        return failures;
+    }
+
+    /**
+     * Stops the workers after the submitted files are done.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static Result compress(Path input, Path output) {
+        long start = System.nanoTime();
+        long originalSize = 0;
+        try {
+            originalSize = Files.size(input);
+            if (output.getParent() != null)
+                Files.createDirectories(output.getParent());
+            long compressedSize = new HuffmanFileCompressor().compress(input, output);
+            return new Result(input, originalSize, compressedSize, System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            return new Result(input, originalSize, 0, System.nanoTime() - start, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Outcome of compressing one file.
+     *
+     * @param input the compressed file
+     * @param originalBytes the size of the input in bytes
+     * @param compressedBytes the size of the output in bytes, 0 on failure
+     * @param nanos the time spent on the file
+     * @param error the error message, or null on success
+     */
+    public record Result(Path input, long originalBytes, long compressedBytes, long nanos, String error) {
+        /**
+         * Gets the compression ratio.
+         *
+         * @return the compressed size divided by the original size, or 0 for an empty or failed file
+         */
+        public double ratio() {
+            return originalBytes == 0 || error != null ? 0 : (double) compressedBytes / originalBytes;
+        }
+
+        /**
+         * Gets the throughput over the input size.
+         *
+         * @return megabytes (10^6 bytes) of input per second, or 0 for a failed file
+         */
+        public double megabytesPerSecond() {
+            return nanos == 0 || error != null ? 0 : originalBytes * 1e3 / nanos;
+        }
+
+        /**
+         * Formats the result as a line of the CSV report, see {@link #REPORT_HEADER}.
+         *
+         * @return the CSV line
+         */
+        public String toCsv() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%.4f,%.2f,%.3f,%s", csvField(input.toString()),
+                    originalBytes, compressedBytes, ratio(), megabytesPerSecond(), nanos / 1e6,
+                    error == null ? "ok" : csvField("error: " + error));
+        }
+
+        private static String csvField(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+                return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Buffered reader that unpacks bits written by {@link BitWriter}, most significant bit first.
+ * Once the source is exhausted the reader behaves as if it were followed by zero bits,
+ * so callers are expected to know how many bits or symbols they need to read.
+ */
+public class BitReader {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel; // Null when reading from a fixed buffer
+    private final ByteBuffer buffer;
+    private long bitBuffer;   // Unread bits, right-aligned
+    private int bitCount;     // Number of unread bits in bitBuffer
+    private long bitsRead;    // Total number of bits consumed so far
+    private long bitsLoaded;  // Total number of bits taken from the source so far
+    private boolean endOfInput;
+
+    /**
+     * Constructor for a bit reader over a byte array.
+     *
+     * @param data the packed bytes to read
+     */
+    public BitReader(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Constructor for a bit reader over the remaining bytes of a buffer.
+     *
+     * @param data the buffer holding the packed bytes
+     */
+    public BitReader(ByteBuffer data) {
+        this.channel = null;
+        this.buffer = data;
+        this.endOfInput = true;
+    }
+
+    /**
+     * Constructor for a bit reader that reads from an input stream.
+     *
+     * @param in the input stream that provides the packed bytes
+     */
+    public BitReader(InputStream in) {
+        this(Channels.newChannel(in), ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Constructor for a bit reader that reads from a channel through the given buffer.
+     * The buffer may be a direct buffer; it is cleared before use.
+     *
+     * @param channel the channel that provides the packed bytes
+     * @param buffer the buffer used to batch reads from the channel
+     */
+    public BitReader(ReadableByteChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.buffer.clear().flip();
+        this.endOfInput = false;
+    }
+
+    /**
+     * Returns the next {@code length} bits without consuming them.
+     * Bits past the end of the input are read as zeros.
+     *
+     * @param length the number of bits to peek, from 1 to 32
+     * @return the bits, right-aligned
+     */
+    public int peekBits(int length) {
+        fill(length);
+        long bits = (bitCount >= length) ? bitBuffer >>> (bitCount - length) : bitBuffer << (length - bitCount);
+        return (int) (bits & (0xFFFFFFFFL >>> (32 - length)));
+    }
+
+    /**
+     * Consumes bits previously returned by {@link #peekBits(int)}.
+     *
+     * @param length the number of bits to consume
+     */
+    public void skipBits(int length) {
+        bitsRead += length;
+        if (length > bitCount) {
+            bitCount = 0; // Consumed past the end of the input
+        } else {
+            bitCount -= length;
+        }
+    }
+
+    /**
+     * Reads and consumes the next {@code length} bits.
+     *
+     * @param length the number of bits to read, from 1 to 32
+     * @return the bits, right-aligned
+     */
+    public int readBits(int length) {
+        int bits = peekBits(length);
+        skipBits(length);
+        return bits;
+    }
+
+    /**
+     * Reads and consumes a single bit.
+     *
+     * @return the bit read, either 0 or 1
+     */
+    public int readBit() {
+        return readBits(1);
+    }
+
+    /**
+     * Skips the remaining bits of the current byte, so the next read starts on a byte boundary.
+     */
+    public void alignToByte() {
+        int padding = (int) (-bitsRead & 7);
+        if (padding > 0)
+            skipBits(padding);
+    }
+
+    /**
+     * Gets the number of bits consumed so far.
+     *
+     * @return the number of bits read
+     */
+    public long getBitsRead() {
+        return bitsRead;
+    }
+
+    /**
+     * Checks whether more bits were consumed than the input held, that is, whether a read ran into the zero
+     * bits that stand in for the data past the end of the input.
+     *
+     * @return true if some of the bits consumed were padding, false otherwise
+     */
+    public boolean isPastEnd() {
+        return bitsRead > bitsLoaded;
+    }
+
+    /**
+     * Checks whether any real (non-padding) bits are left to read.
+     *
+     * @return true if more input bits are available, false otherwise
+     */
+    public boolean hasMoreBits() {
+        fill(1);
+        return bitCount > 0;
+    }
+
+    private void fill(int length) {
+        while (bitCount < length) {
+            if (!buffer.hasRemaining() && !refill())
+                return;
+            bitBuffer = (bitBuffer << 8) | (buffer.get() & 0xFF);
+            bitCount += 8;
+            bitsLoaded += 8;
+        }
+    }
+
+    private boolean refill() {
+        if (endOfInput)
+            return false;
+
+        buffer.compact();
+        try {
+            int read = 0;
+            while (read == 0) {
+                read = channel.read(buffer);
+            }
+            if (read < 0)
+                endOfInput = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.flip();
+        }
+        return buffer.hasRemaining();
+    }
+}
@@ -0,0 +1,133 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered writer that packs variable-length codes into bytes, most significant bit first.
+ * Bits are collected in a 64-bit accumulator and flushed to a byte buffer, which is drained
+ * to the underlying channel whenever it fills up.
+ */
+public class BitWriter implements AutoCloseable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bitBuffer;   // Pending bits, right-aligned
+    private int bitCount;     // Number of pending bits in bitBuffer
+    private long bitsWritten; // Total number of bits written so far
+
+    /**
+     * Constructor for a bit writer that writes to an output stream.
+     *
+     * @param out the output stream that receives the packed bytes
+     */
+    public BitWriter(OutputStream out) {
+        this(Channels.newChannel(out), ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Constructor for a bit writer that writes to a channel through the given buffer.
+     * The buffer may be a direct buffer; it is cleared before use.
+     *
+     * @param channel the channel that receives the packed bytes
+     * @param buffer the buffer used to batch writes to the channel
+     */
+    public BitWriter(WritableByteChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes the lowest {@code length} bits of the given value, most significant bit first.
+     *
+     * @param value the bits to write, right-aligned
+     * @param length the number of bits to write, from 0 to 32
+     */
+    public void writeBits(int value, int length) {
+        if (length == 0)
+            return;
+
+        bitBuffer = (bitBuffer << length) | (value & (0xFFFFFFFFL >>> (32 - length)));
+        bitCount += length;
+        bitsWritten += length;
+
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            putByte((byte) (bitBuffer >>> bitCount));
+        }
+    }
+
+    /**
+     * Writes a single bit.
+     *
+     * @param bit the bit to write, either 0 or 1
+     */
+    public void writeBit(int bit) {
+        writeBits(bit, 1);
+    }
+
+    /**
+     * Writes a code given as a string of '0' and '1' characters.
+     * This is the slow path used for codes that do not fit in 32 bits.
+     *
+     * @param code the code to write
+     */
+    public void writeCode(String code) {
+        for (int i = 0; i < code.length(); i++) {
+            writeBit(code.charAt(i) == '1' ? 1 : 0);
+        }
+    }
+
+    /**
+     * Gets the number of bits written so far, not counting the padding added by {@link #flush()}.
+     *
+     * @return the number of bits written
+     */
+    public long getBitsWritten() {
+        return bitsWritten;
+    }
+
+    /**
+     * Pads the last partial byte with zero bits and writes all buffered bytes to the channel.
+     * Further bits written after a flush start on a new byte boundary.
+     */
+    public void flush() {
+        if (bitCount > 0) {
+            putByte((byte) (bitBuffer << (8 - bitCount)));
+            bitCount = 0;
+        }
+        drain();
+    }
+
+    /**
+     * Flushes the remaining bits. The underlying channel is left open.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void putByte(byte b) {
+        if (!buffer.hasRemaining())
+            drain();
+        buffer.put(b);
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
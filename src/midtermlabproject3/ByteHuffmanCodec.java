@@ -0,0 +1,309 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Huffman codec for the byte alphabet 0-255, so arbitrary binary data can be compressed.
+ *
+ * Frequencies, codes and code lengths are fixed 256-entry primitive arrays indexed by unsigned byte value,
+ * so encoding needs no hashing, and decoding goes through a {@link TableDecoder}. Codes are limited to
+ * {@link #MAX_CODE_LENGTH} bits so every code is a single register write. Text is supported through a
+ * UTF-8 adapter on top of the byte path.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class ByteHuffmanCodec {
+    /** Longest code length used by the byte codec. */
+    public static final int MAX_CODE_LENGTH = 32;
+
+    private static final FrequencyCounter FREQUENCY_COUNTER = new FrequencyCounter();
+
+    private final HuffmanCodebook codebook;
+    private final int[] codes = new int[256];
+    private final int[] lengths = new int[256];
+    private final boolean[] present = new boolean[256];
+    private final TableDecoder decoder;
+    private final int singleSymbol; // The only byte value when the codebook has one symbol, otherwise -1
+
+    private ByteHuffmanCodec(HuffmanCodebook codebook) {
+        if (codebook.getSymbolCount() == 0)
+            throw new IllegalArgumentException("The codebook is empty.");
+        if (codebook.getMaxLength() > MAX_CODE_LENGTH)
+            throw new IllegalArgumentException("Codes longer than " + MAX_CODE_LENGTH + " bits aren't supported.");
+
+        for (int i = 0; i < codebook.getSymbolCount(); i++) {
+            char symbol = codebook.getSymbol(i);
+            if (symbol > 255)
+                throw new IllegalArgumentException("Symbol " + (int) symbol + " isn't a byte value.");
+
+            codes[symbol] = (int) codebook.getCode(i);
+            lengths[symbol] = codebook.getLength(i);
+            present[symbol] = true;
+        }
+        this.codebook = codebook;
+        this.decoder = new TableDecoder(codebook);
+        this.singleSymbol = codebook.getSymbolCount() == 1 ? codebook.getSymbol(0) : -1;
+    }
+
+    /**
+     * Creates a codec from a byte histogram.
+     *
+     * @param histogram the frequency of each byte value, at most 256 entries
+     * @return the codec
+     * @throws IllegalArgumentException if the histogram is empty
+     */
+    public static ByteHuffmanCodec fromHistogram(long[] histogram) {
+        FlatHuffmanTree tree = FlatHuffmanTree.of(histogram);
+        if (tree.codeLengths(new int[histogram.length]) <= MAX_CODE_LENGTH)
+            return new ByteHuffmanCodec(HuffmanCodebook.fromTree(tree));
+
+        Map<Character, Long> frequencyTable = new HuffmanEncoder().buildFrequencyTable(histogram);
+        return new ByteHuffmanCodec(HuffmanCodebook.fromCodeLengths(LengthLimitedCode.codeLengths(frequencyTable, MAX_CODE_LENGTH)));
+    }
+
+    /**
+     * Creates a codec from a canonical codebook whose symbols are byte values.
+     *
+     * @param codebook the canonical codebook
+     * @return the codec
+     * @throws IllegalArgumentException if a symbol isn't a byte value or a code is too long
+     */
+    public static ByteHuffmanCodec fromCodebook(HuffmanCodebook codebook) {
+        return new ByteHuffmanCodec(codebook);
+    }
+
+    /**
+     * Creates a codec for the given bytes.
+     *
+     * @param data the bytes the codec will encode
+     * @return the codec
+     * @throws IllegalArgumentException if the data is empty
+     */
+    public static ByteHuffmanCodec of(byte[] data) {
+        return fromHistogram(buildFrequencyTable(data));
+    }
+
+    /**
+     * Creates a codec for the UTF-8 encoding of the given text.
+     *
+     * @param text the text the codec will encode
+     * @return the codec
+     * @throws IllegalArgumentException if the text is empty
+     */
+    public static ByteHuffmanCodec ofText(String text) {
+        return of(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a codec from a codebook header written by {@link #write(OutputStream)}.
+     *
+     * @param in the input stream to read from
+     * @return the codec
+     * @throws IOException if reading fails or the header isn't a valid byte codebook
+     */
+    public static ByteHuffmanCodec read(InputStream in) throws IOException {
+        try {
+            return new ByteHuffmanCodec(HuffmanCodebook.read(in));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid byte codebook: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Counts the bytes of an array into a 256-entry histogram.
+     *
+     * @param data the bytes to count
+     * @return the frequency of each byte value
+     */
+    public static long[] buildFrequencyTable(byte[] data) {
+        return FREQUENCY_COUNTER.count(data);
+    }
+
+    /**
+     * Counts the remaining bytes of a buffer into a 256-entry histogram without moving its position.
+     *
+     * @param data the bytes to count
+     * @return the frequency of each byte value
+     */
+    public static long[] buildFrequencyTable(ByteBuffer data) {
+        return FREQUENCY_COUNTER.count(data);
+    }
+
+    /**
+     * Writes the codebook header.
+     *
+     * @param out the output stream to write to
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        codebook.write(out);
+    }
+
+    /**
+     * Encodes one byte.
+     *
+     * @param value the byte to encode
+     * @param out the bit writer to write to
+     * @throws InvalidDecodedTextException if the byte has no code
+     */
+    public void encode(byte value, BitWriter out) throws InvalidDecodedTextException {
+        int symbol = value & 0xFF;
+        if (!present[symbol])
+            throw new InvalidDecodedTextException("Invalid Action. Some byte/s in the data don't match any of the provided codes.");
+        out.writeBits(codes[symbol], lengths[symbol]);
+    }
+
+    /**
+     * Encodes the remaining bytes of a buffer, leaving its position at the limit.
+     *
+     * @param data the bytes to encode
+     * @param out the bit writer to write to
+     * @throws InvalidDecodedTextException if a byte has no code
+     */
+    public void encode(ByteBuffer data, BitWriter out) throws InvalidDecodedTextException {
+        while (data.hasRemaining()) {
+            encode(data.get(), out);
+        }
+    }
+
+    /**
+     * Encodes bytes into packed bits.
+     *
+     * @param data the bytes to encode
+     * @return the packed bits together with their exact length
+     * @throws InvalidDecodedTextException if a byte has no code
+     */
+    public EncodedBits encode(byte[] data) throws InvalidDecodedTextException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2 + 16);
+        BitWriter out = new BitWriter(bytes);
+        encode(ByteBuffer.wrap(data), out);
+        long bitLength = out.getBitsWritten();
+        out.flush();
+        return new EncodedBits(bytes.toByteArray(), bitLength);
+    }
+
+    /**
+     * Decodes one byte.
+     *
+     * @param in the bit reader to read from
+     * @return the decoded byte
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public byte decode(BitReader in) throws InvalidEncodedTextException {
+        return (byte) (singleSymbol >= 0 ? singleSymbol : decoder.decodeSymbol(in));
+    }
+
+    /**
+     * Decodes bytes until the buffer has no space remaining.
+     *
+     * @param in the bit reader to read from
+     * @param out the buffer to fill
+     * @throws InvalidEncodedTextException if the bits don't match any code or run past the end of the input
+     */
+    public void decode(BitReader in, ByteBuffer out) throws InvalidEncodedTextException {
+        while (out.hasRemaining()) {
+            out.put(decode(in));
+        }
+        if (in.isPastEnd())
+            throw new InvalidEncodedTextException("Invalid action. The encoded data ends before the last code. ");
+    }
+
+    /**
+     * Decodes packed bits into the given number of bytes.
+     *
+     * @param bits the packed bits
+     * @param length the number of bytes to decode
+     * @return the decoded bytes
+     * @throws InvalidEncodedTextException if the bits don't match any code or run past the bit length
+     */
+    public byte[] decode(EncodedBits bits, int length) throws InvalidEncodedTextException {
+        byte[] data = new byte[length];
+        BitReader in = bits.reader();
+        decode(in, ByteBuffer.wrap(data));
+        if (in.getBitsRead() > bits.getBitLength())
+            throw new InvalidEncodedTextException("Invalid action. The encoded data ends before the last code. ");
+        return data;
+    }
+
+    /**
+     * Encodes the UTF-8 bytes of a text.
+     *
+     * @param text the text to encode
+     * @return the packed bits together with their exact length
+     * @throws InvalidDecodedTextException if a byte of the text has no code
+     */
+    public EncodedBits encodeText(String text) throws InvalidDecodedTextException {
+        return encode(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes packed bits as UTF-8 text.
+     *
+     * @param bits the packed bits
+     * @param byteLength the number of UTF-8 bytes to decode
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code or run past the bit length
+     */
+    public String decodeText(EncodedBits bits, int byteLength) throws InvalidEncodedTextException {
+        return new String(decode(bits, byteLength), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the exact number of bits needed to encode bytes with the given frequencies.
+     *
+     * @param histogram the frequency of each byte value
+     * @return the encoded size in bits
+     */
+    public long getEncodedBits(long[] histogram) {
+        long bits = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            bits += histogram[b] * lengths[b];
+        }
+        return bits;
+    }
+
+    /**
+     * Checks whether the given byte value has a code.
+     *
+     * @param symbol the unsigned byte value
+     * @return true if the byte can be encoded, false otherwise
+     */
+    public boolean contains(int symbol) {
+        return present[symbol];
+    }
+
+    /**
+     * Gets the code of a byte value.
+     *
+     * @param symbol the unsigned byte value
+     * @return the code, right-aligned in {@link #getLength(int)} bits
+     */
+    public int getCode(int symbol) {
+        return codes[symbol];
+    }
+
+    /**
+     * Gets the code length of a byte value.
+     *
+     * @param symbol the unsigned byte value
+     * @return the code length in bits, 0 for absent bytes and for a lone symbol
+     */
+    public int getLength(int symbol) {
+        return lengths[symbol];
+    }
+
+    /**
+     * Gets the canonical codebook of this codec.
+     *
+     * @return the codebook
+     */
+    public HuffmanCodebook getCodebook() {
+        return codebook;
+    }
+}
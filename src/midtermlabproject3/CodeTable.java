@@ -0,0 +1,99 @@
+package midtermlabproject3;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Flat lookup table of Huffman codes indexed by character, used by the bit-packed encoders.
+ * Codes of up to 32 bits are stored as primitive values; longer codes fall back to their string form.
+ */
+public class CodeTable {
+    private static final int MAX_PACKED_LENGTH = 32;
+
+    private final int[] codes;
+    private final int[] lengths;      // -1 for characters without a code
+    private final String[] longCodes; // Null unless some code is longer than 32 bits
+
+    /**
+     * Constructor that converts the Huffman code map into flat arrays.
+     *
+     * @param huffmanCode map of characters to their Huffman codes
+     */
+    public CodeTable(Map<Character, String> huffmanCode) {
+        int size = 0;
+        boolean hasLongCodes = false;
+        for (Map.Entry<Character, String> entry : huffmanCode.entrySet()) {
+            size = Math.max(size, entry.getKey() + 1);
+            hasLongCodes |= entry.getValue().length() > MAX_PACKED_LENGTH;
+        }
+
+        codes = new int[size];
+        lengths = new int[size];
+        longCodes = hasLongCodes ? new String[size] : null;
+        Arrays.fill(lengths, -1);
+
+        for (Map.Entry<Character, String> entry : huffmanCode.entrySet()) {
+            char character = entry.getKey();
+            String code = entry.getValue();
+            lengths[character] = code.length();
+            if (code.length() > MAX_PACKED_LENGTH) {
+                longCodes[character] = code;
+            } else if (!code.isEmpty()) {
+                codes[character] = (int) Long.parseLong(code, 2);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the table has a code for the given character.
+     *
+     * @param character the character to look up
+     * @return true if the character has a code, false otherwise
+     */
+    public boolean contains(char character) {
+        return character < lengths.length && lengths[character] >= 0;
+    }
+
+    /**
+     * Gets the code length of the given character.
+     *
+     * @param character the character to look up
+     * @return the code length in bits, or -1 if the character has no code
+     */
+    public int getLength(char character) {
+        return character < lengths.length ? lengths[character] : -1;
+    }
+
+    /**
+     * Gets the code of a character whose code is at most 32 bits long, right-aligned.
+     */
+    int getCode(char character) {
+        return codes[character];
+    }
+
+    /**
+     * Gets the code of a character whose code is longer than 32 bits, as a string of '0' and '1' characters.
+     */
+    String getLongCode(char character) {
+        return longCodes[character];
+    }
+
+    /**
+     * Writes the code of the given character.
+     *
+     * @param out the bit writer to write to
+     * @param character the character to encode
+     * @throws InvalidDecodedTextException if the character has no code
+     */
+    public void write(BitWriter out, char character) throws InvalidDecodedTextException {
+        if (!contains(character))
+            throw new InvalidDecodedTextException("Invalid Action. Some character/s in the text doesn't match any of the provided character codes.");
+
+        int length = lengths[character];
+        if (length > MAX_PACKED_LENGTH) {
+            out.writeCode(longCodes[character]);
+        } else {
+            out.writeBits(codes[character], length);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package midtermlabproject3;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe cache of ready-to-use codebooks keyed by a fingerprint of the frequency histogram.
+ *
+ * Histograms are quantized before lookup: each symbol's share of the total is rounded to a logarithmic
+ * level, so texts with near-identical distributions map to the same key. The cached codebook is built from
+ * the quantized histogram rather than from whichever text came first, so a key always yields the same codes.
+ * Least recently used entries are evicted once the cache is full.
+ */
+public class CodebookCache {
+    /** Default maximum number of cached codebooks. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Default number of quantization levels per doubling of a symbol's frequency. */
+    public static final int DEFAULT_LEVELS_PER_OCTAVE = 2;
+
+    private static final double PRECISION = 1 << 20; // Smallest representable share of the total
+
+    private final int capacity;
+    private final int levelsPerOctave;
+    private final LinkedHashMap<Key, CachedCodebook> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor for a cache with the default capacity and quantization.
+     */
+    public CodebookCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_LEVELS_PER_OCTAVE);
+    }
+
+    /**
+     * Constructor for a cache with the given capacity and quantization.
+     *
+     * @param capacity the maximum number of cached codebooks, at least 1
+     * @param levelsPerOctave the number of quantization levels per doubling of frequency; more levels give
+     *                        codes closer to optimal but fewer cache hits
+     */
+    public CodebookCache(int capacity, int levelsPerOctave) {
+        if (capacity < 1 || levelsPerOctave < 1)
+            throw new IllegalArgumentException("The capacity and levels per octave must be positive.");
+
+        this.capacity = capacity;
+        this.levelsPerOctave = levelsPerOctave;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedCodebook> eldest) {
+                if (size() <= CodebookCache.this.capacity)
+                    return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the codebook for a histogram, building and caching it on a miss.
+     *
+     * @param histogram the frequency of each character, indexed by character value
+     * @return the cached codebook with its encode and decode tables
+     * @throws IllegalArgumentException if the histogram is empty
+     */
+    public CachedCodebook get(long[] histogram) {
+        Key key = quantize(histogram);
+
+        synchronized (entries) {
+            CachedCodebook cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        // Build outside the lock; if another thread built the same key meanwhile, keep the first one
+        misses.incrementAndGet();
+        CachedCodebook built = build(key);
+        synchronized (entries) {
+            CachedCodebook existing = entries.putIfAbsent(key, built);
+            return existing != null ? existing : built;
+        }
+    }
+
+    /**
+     * Gets the codebook for a frequency table, building and caching it on a miss.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @return the cached codebook with its encode and decode tables
+     * @throws IllegalArgumentException if the frequency table is empty
+     */
+    public CachedCodebook get(Map<Character, Long> frequencyTable) {
+        int size = 0;
+        for (char character : frequencyTable.keySet()) {
+            size = Math.max(size, character + 1);
+        }
+        long[] histogram = new long[size];
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            histogram[entry.getKey()] = entry.getValue();
+        }
+        return get(histogram);
+    }
+
+    /**
+     * Removes all cached codebooks. The statistics are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached codebooks.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a cached codebook.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to build a codebook.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of codebooks evicted to stay within the capacity.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the fraction of lookups that were hits.
+     *
+     * @return the hit rate from 0 to 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private Key quantize(long[] histogram) {
+        long total = 0;
+        int size = 0;
+        for (int c = 0; c < histogram.length; c++) {
+            total += histogram[c];
+            if (histogram[c] > 0)
+                size = c + 1;
+        }
+        if (total == 0)
+            throw new IllegalArgumentException("The histogram is empty.");
+
+        // Level 0 means absent; present symbols get at least level 1 so the symbol set is part of the key
+        int[] levels = new int[size];
+        for (int c = 0; c < size; c++) {
+            if (histogram[c] > 0) {
+                double share = Math.max(1.0, histogram[c] * PRECISION / total);
+                levels[c] = 1 + (int) Math.round(levelsPerOctave * Math.log(share) / Math.log(2));
+            }
+        }
+        return new Key(levels);
+    }
+
+    private CachedCodebook build(Key key) {
+        long[] representative = new long[key.levels.length];
+        for (int c = 0; c < representative.length; c++) {
+            if (key.levels[c] > 0)
+                representative[c] = Math.round(Math.pow(2, (double) (key.levels[c] - 1) / levelsPerOctave));
+        }
+
+        HuffmanCodebook codebook = HuffmanCodebook.fromTree(FlatHuffmanTree.of(representative));
+        Map<Character, String> huffmanCode = new HashMap<>();
+        codebook.buildCodeMap(huffmanCode);
+        return new CachedCodebook(codebook, Collections.unmodifiableMap(huffmanCode), new CodeTable(huffmanCode), new TableDecoder(huffmanCode));
+    }
+
+    /**
+     * Quantized histogram used as the cache key, with its hash computed once.
+     */
+    private static final class Key {
+        private final int[] levels;
+        private final int hash;
+
+        Key(int[] levels) {
+            this.levels = levels;
+            this.hash = Arrays.hashCode(levels);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && hash == key.hash && Arrays.equals(levels, key.levels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Ready-to-use codebook: the canonical codebook with its code map, encode table and decode table.
+     * None of these are modified after construction, so they can be shared between threads.
+     *
+     * @param codebook the canonical codebook
+     * @param huffmanCode unmodifiable map of characters to their codes
+     * @param codeTable the flat encode table
+     * @param decoder the lookup-table decoder
+     */
+    public record CachedCodebook(HuffmanCodebook codebook, Map<Character, String> huffmanCode, CodeTable codeTable, TableDecoder decoder) {
+    }
+}
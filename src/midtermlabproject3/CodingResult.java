@@ -0,0 +1,76 @@
+package midtermlabproject3;
+
+/**
+ * Outcome of one call to a {@link HuffmanBufferEncoder} or {@link HuffmanBufferDecoder}: why the call stopped,
+ * how many symbols it encoded or decoded and how many code bits it wrote or read.
+ *
+ * Each encoder and decoder owns one result and refills it on every call, so the buffer API allocates nothing
+ * per call. A result is only valid until the next call on the same encoder or decoder.
+ */
+public final class CodingResult {
+    /**
+     * Reason a call stopped, named like {@link java.nio.charset.CoderResult}.
+     */
+    public enum Status {
+        /** All input was used up; call again with more input, or finish. */
+        UNDERFLOW,
+        /** The output buffer is full; call again with more room to continue where this call stopped. */
+        OVERFLOW
+    }
+
+    private Status status = Status.UNDERFLOW;
+    private int symbols;
+    private long bits;
+
+    CodingResult() {
+    }
+
+    CodingResult set(Status status, int symbols, long bits) {
+        this.status = status;
+        this.symbols = symbols;
+        this.bits = bits;
+        return this;
+    }
+
+    /**
+     * Gets the reason the call stopped.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks whether the call stopped because the output buffer was full.
+     *
+     * @return true if the call should be repeated with more output room, false otherwise
+     */
+    public boolean isOverflow() {
+        return status == Status.OVERFLOW;
+    }
+
+    /**
+     * Gets the number of symbols consumed by an encoder or produced by a decoder in the call.
+     *
+     * @return the number of symbols
+     */
+    public int getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Gets the number of code bits produced by an encoder or consumed by a decoder in the call, not counting
+     * bits still buffered inside the decoder or the padding written by {@link HuffmanBufferEncoder#finish}.
+     *
+     * @return the number of bits
+     */
+    public long getBits() {
+        return bits;
+    }
+
+    @Override
+    public String toString() {
+        return status + " (" + symbols + " symbols, " + bits + " bits)";
+    }
+}
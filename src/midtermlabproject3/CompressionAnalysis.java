@@ -0,0 +1,208 @@
+package midtermlabproject3;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compression statistics of a code for a given character histogram, computed in a single pass.
+ *
+ * Everything is derived from the frequency table and the code lengths, so the text is never scanned or
+ * encoded again: the original size for any fixed-width encoding, the exact compressed size, the header
+ * cost, the entropy of the histogram and how far the expected code length is from it. Sizes use
+ * {@code long} arithmetic, so inputs with billions of characters are reported exactly.
+ */
+public class CompressionAnalysis {
+    private final long symbolCount;
+    private final int distinctSymbols;
+    private final long compressedBits;
+    private final int maxCodeLength;
+    private final long headerBytes;
+    private final double entropy;
+
+    private CompressionAnalysis(Map<Character, Long> frequencyTable, Map<Character, Integer> codeLengths, long headerBytes) {
+        long total = 0, bits = 0;
+        int distinct = 0, maxLength = 0;
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            long frequency = entry.getValue();
+            if (frequency == 0)
+                continue;
+
+            Integer length = codeLengths.get(entry.getKey());
+            if (length == null)
+                throw new IllegalArgumentException("No code for character " + (int) entry.getKey() + ".");
+            total += frequency;
+            bits += frequency * length;
+            distinct++;
+            maxLength = Math.max(maxLength, length);
+        }
+
+        // Second loop over the histogram (not the text) once the total is known
+        double entropy = 0;
+        for (long frequency : frequencyTable.values()) {
+            if (frequency > 0) {
+                double p = (double) frequency / total;
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+
+        this.symbolCount = total;
+        this.distinctSymbols = distinct;
+        this.compressedBits = bits;
+        this.maxCodeLength = maxLength;
+        this.headerBytes = headerBytes;
+        this.entropy = entropy;
+    }
+
+    /**
+     * Analyzes a code given as strings, e.g. from {@link HuffmanEncoder#buildHuffmanCode}.
+     * The header cost is that of the equivalent canonical codebook header.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @param huffmanCode map of characters to their Huffman codes
+     * @return the analysis
+     * @throws IllegalArgumentException if a character with a non-zero frequency has no code
+     */
+    public static CompressionAnalysis of(Map<Character, Long> frequencyTable, Map<Character, String> huffmanCode) {
+        Map<Character, Integer> codeLengths = new HashMap<>();
+        for (Map.Entry<Character, String> entry : huffmanCode.entrySet()) {
+            codeLengths.put(entry.getKey(), entry.getValue().length());
+        }
+        return new CompressionAnalysis(frequencyTable, codeLengths, huffmanCode.isEmpty() ? 0 : 2 + 3L * huffmanCode.size());
+    }
+
+    /**
+     * Analyzes a canonical codebook, with the header cost of {@link HuffmanCodebook#write}.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @param codebook the canonical codebook
+     * @return the analysis
+     * @throws IllegalArgumentException if a character with a non-zero frequency has no code
+     */
+    public static CompressionAnalysis of(Map<Character, Long> frequencyTable, HuffmanCodebook codebook) {
+        Map<Character, Integer> codeLengths = new HashMap<>();
+        codebook.buildCodeLengths(codeLengths);
+        return new CompressionAnalysis(frequencyTable, codeLengths, codebook.getSymbolCount() == 0 ? 0 : codebook.getHeaderSize());
+    }
+
+    /**
+     * Gets the number of characters in the analyzed text.
+     *
+     * @return the sum of all frequencies
+     */
+    public long getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * Gets the number of distinct characters that occur in the text.
+     *
+     * @return the number of characters with a non-zero frequency
+     */
+    public int getDistinctSymbols() {
+        return distinctSymbols;
+    }
+
+    /**
+     * Gets the size of the text in a fixed-width encoding.
+     *
+     * @param bitsPerSymbol the number of bits per character, e.g. 7 for ASCII, 8 for EBCDIC or 16 for Unicode
+     * @return the original size in bits
+     */
+    public long getOriginalBits(int bitsPerSymbol) {
+        return symbolCount * bitsPerSymbol;
+    }
+
+    /**
+     * Gets the exact size of the encoded text.
+     *
+     * @return the compressed size in bits, not counting the header
+     */
+    public long getCompressedBits() {
+        return compressedBits;
+    }
+
+    /**
+     * Gets the size of the codebook header that has to be stored with the encoded text.
+     *
+     * @return the header size in bytes
+     */
+    public long getHeaderBytes() {
+        return headerBytes;
+    }
+
+    /**
+     * Gets the size of the encoded text together with its header.
+     *
+     * @return the total compressed size in bits
+     */
+    public long getTotalCompressedBits() {
+        return compressedBits + 8 * headerBytes;
+    }
+
+    /**
+     * Gets the length of the longest code used by the text.
+     *
+     * @return the maximum code length in bits
+     */
+    public int getMaxCodeLength() {
+        return maxCodeLength;
+    }
+
+    /**
+     * Gets the Shannon entropy of the histogram, the lower bound of the expected code length.
+     *
+     * @return the entropy in bits per symbol
+     */
+    public double getEntropy() {
+        return entropy;
+    }
+
+    /**
+     * Gets the average code length weighted by frequency.
+     *
+     * @return the expected code length in bits per symbol, or 0 for an empty text
+     */
+    public double getExpectedCodeLength() {
+        return symbolCount == 0 ? 0 : (double) compressedBits / symbolCount;
+    }
+
+    /**
+     * Gets the redundancy of the code, how far the expected code length is above the entropy.
+     *
+     * @return the redundancy in bits per symbol
+     */
+    public double getRedundancy() {
+        return getExpectedCodeLength() - entropy;
+    }
+
+    /**
+     * Gets the storage savings of the encoded text compared to a fixed-width encoding, without the header.
+     *
+     * @param bitsPerSymbol the number of bits per character of the fixed-width encoding
+     * @return the savings as a percentage, or 0 for an empty text
+     */
+    public double getSavings(int bitsPerSymbol) {
+        long originalBits = getOriginalBits(bitsPerSymbol);
+        return originalBits == 0 ? 0 : (double) (originalBits - compressedBits) / originalBits * 100;
+    }
+
+    /**
+     * Gets the storage savings compared to a fixed-width encoding, counting the header.
+     *
+     * @param bitsPerSymbol the number of bits per character of the fixed-width encoding
+     * @return the savings as a percentage, negative when the header outweighs the savings, or 0 for an empty text
+     */
+    public double getSavingsWithHeader(int bitsPerSymbol) {
+        long originalBits = getOriginalBits(bitsPerSymbol);
+        return originalBits == 0 ? 0 : (double) (originalBits - getTotalCompressedBits()) / originalBits * 100;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        Characters: %d (%d distinct)
+                        Compressed: %d bits + %d byte header
+                        Entropy: %.3f bits/symbol, expected code length: %.3f bits/symbol, redundancy: %.3f bits/symbol""",
+                symbolCount, distinctSymbols, compressedBits, headerBytes, entropy, getExpectedCodeLength(), getRedundancy());
+    }
+}
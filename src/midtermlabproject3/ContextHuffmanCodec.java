@@ -0,0 +1,246 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable order-1 Huffman codec: each character is coded with a codebook chosen by the character before it.
+ *
+ * In text the next character often depends strongly on the previous one (after 'q' comes 'u'), so a
+ * codebook per preceding character gives shorter codes than the single order-0 codebook of {@link HuffmanCodec}.
+ * Every codebook costs a header, so a context only gets its own codebook when that saves more bits than
+ * the header costs; all other contexts, and the first character, share a fallback codebook built from
+ * their merged counts.
+ *
+ * The codebooks are stored with {@link #write(OutputStream)}: an int with the number of dedicated contexts,
+ * the fallback codebook, and each context character followed by its codebook.
+ */
+public final class ContextHuffmanCodec {
+    private static final int FALLBACK = 0;
+
+    private final char[] contexts;            // contexts[i] is the character that selects codebook i, i > 0
+    private final HuffmanCodebook[] codebooks; // codebooks[0] is the fallback
+    private final CodeTable[] codeTables;
+    private final TableDecoder[] decoders;
+    private final int[] loneSymbols;          // The only character of a one-symbol codebook, otherwise -1
+    private final int[] contextIndex;         // Codebook index by preceding character, 0 past the end
+
+    private ContextHuffmanCodec(char[] contexts, HuffmanCodebook[] codebooks) {
+        this.contexts = contexts;
+        this.codebooks = codebooks;
+        this.codeTables = new CodeTable[codebooks.length];
+        this.decoders = new TableDecoder[codebooks.length];
+        this.loneSymbols = new int[codebooks.length];
+        for (int i = 0; i < codebooks.length; i++) {
+            if (codebooks[i].getSymbolCount() == 0)
+                throw new IllegalArgumentException("A context codebook is empty.");
+
+            Map<Character, String> huffmanCode = new HashMap<>();
+            codebooks[i].buildCodeMap(huffmanCode);
+            codeTables[i] = new CodeTable(huffmanCode);
+            decoders[i] = new TableDecoder(codebooks[i]);
+            loneSymbols[i] = codebooks[i].getSymbolCount() == 1 ? codebooks[i].getSymbol(0) : -1;
+        }
+
+        int maxContext = -1;
+        for (int i = 1; i < contexts.length; i++) {
+            maxContext = Math.max(maxContext, contexts[i]);
+        }
+        this.contextIndex = new int[maxContext + 1];
+        for (int i = 1; i < contexts.length; i++) {
+            if (contextIndex[contexts[i]] != FALLBACK)
+                throw new IllegalArgumentException("Context " + (int) contexts[i] + " has more than one codebook.");
+            contextIndex[contexts[i]] = i;
+        }
+    }
+
+    /**
+     * Creates a codec for the characters of a text from its character-pair counts.
+     *
+     * @param text the text the codec will encode
+     * @return the codec
+     * @throws IllegalArgumentException if the text is empty
+     */
+    public static ContextHuffmanCodec of(CharSequence text) {
+        if (text.length() == 0)
+            throw new IllegalArgumentException("The text is empty.");
+
+        // Sorting the (previous, current) pairs groups the conditional counts of each context together
+        int[] pairs = new int[text.length() - 1];
+        for (int i = 1; i < text.length(); i++) {
+            pairs[i - 1] = text.charAt(i - 1) << 16 | text.charAt(i);
+        }
+        Arrays.parallelSort(pairs);
+
+        Map<Character, Integer> order0Lengths = new HashMap<>();
+        HuffmanCodebook.fromTree(FlatHuffmanTree.of(new FrequencyCounter().count(text))).buildCodeLengths(order0Lengths);
+
+        List<Character> contexts = new ArrayList<>();
+        List<HuffmanCodebook> codebooks = new ArrayList<>();
+        Map<Character, Long> fallbackCounts = new HashMap<>();
+        fallbackCounts.put(text.charAt(0), 1L);
+        for (int start = 0, end; start < pairs.length; start = end) {
+            char context = (char) (pairs[start] >>> 16);
+            Map<Character, Long> counts = new HashMap<>();
+            long fallbackBits = 0;
+            for (end = start; end < pairs.length && pairs[end] >>> 16 == context; ) {
+                int run = end;
+                while (end < pairs.length && pairs[end] == pairs[run]) {
+                    end++;
+                }
+                char symbol = (char) pairs[run];
+                counts.put(symbol, (long) (end - run));
+                fallbackBits += (long) (end - run) * order0Lengths.get(symbol);
+            }
+
+            // A dedicated codebook pays for its header and the context character
+            HuffmanCodebook codebook = HuffmanCodebook.fromTree(FlatHuffmanTree.of(counts));
+            long ownBits = codebook.getEncodedBits(counts) + 8L * (2 + codebook.getHeaderSize());
+            if (ownBits < fallbackBits) {
+                contexts.add(context);
+                codebooks.add(codebook);
+            } else {
+                counts.forEach((symbol, count) -> fallbackCounts.merge(symbol, count, Long::sum));
+            }
+        }
+
+        char[] contextArray = new char[contexts.size() + 1];
+        HuffmanCodebook[] codebookArray = new HuffmanCodebook[codebooks.size() + 1];
+        codebookArray[FALLBACK] = HuffmanCodebook.fromTree(FlatHuffmanTree.of(fallbackCounts));
+        for (int i = 0; i < contexts.size(); i++) {
+            contextArray[i + 1] = contexts.get(i);
+            codebookArray[i + 1] = codebooks.get(i);
+        }
+        return new ContextHuffmanCodec(contextArray, codebookArray);
+    }
+
+    /**
+     * Reads the codebooks written by {@link #write(OutputStream)}.
+     *
+     * @param in the input stream to read from
+     * @return the codec
+     * @throws IOException if reading fails or the codebooks are malformed
+     */
+    public static ContextHuffmanCodec read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int count = data.readInt();
+        if (count < 0 || count > Character.MAX_VALUE + 1)
+            throw new IOException("Invalid context count " + count + ".");
+
+        char[] contexts = new char[count + 1];
+        HuffmanCodebook[] codebooks = new HuffmanCodebook[count + 1];
+        codebooks[FALLBACK] = HuffmanCodebook.read(data);
+        for (int i = 1; i <= count; i++) {
+            contexts[i] = data.readChar();
+            codebooks[i] = HuffmanCodebook.read(data);
+        }
+        try {
+            return new ContextHuffmanCodec(contexts, codebooks);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid context codebooks: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the codebooks, see the class description for the layout.
+     *
+     * @param out the output stream to write to
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(contexts.length - 1);
+        codebooks[FALLBACK].write(data);
+        for (int i = 1; i < contexts.length; i++) {
+            data.writeChar(contexts[i]);
+            codebooks[i].write(data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Gets the size in bytes of the codebooks written by {@link #write(OutputStream)}.
+     *
+     * @return the header size in bytes
+     */
+    public long getHeaderSize() {
+        long size = 4 + codebooks[FALLBACK].getHeaderSize();
+        for (int i = 1; i < codebooks.length; i++) {
+            size += 2 + codebooks[i].getHeaderSize();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of contexts with their own codebook, not counting the fallback.
+     *
+     * @return the number of dedicated contexts
+     */
+    public int getContextCount() {
+        return contexts.length - 1;
+    }
+
+    /**
+     * Encodes text into packed bits.
+     *
+     * @param text the text to encode
+     * @return the packed bits together with their exact length
+     * @throws InvalidDecodedTextException if a character has no code in its context
+     */
+    public EncodedBits encode(CharSequence text) throws InvalidDecodedTextException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 2 + 16);
+        BitWriter out = new BitWriter(bytes);
+        long bitLength = encode(text, out);
+        out.flush();
+        return new EncodedBits(bytes.toByteArray(), bitLength);
+    }
+
+    /**
+     * Encodes text into a bit writer owned by the caller.
+     *
+     * @param text the text to encode
+     * @param out the bit writer to write to
+     * @return the number of bits written
+     * @throws InvalidDecodedTextException if a character has no code in its context
+     */
+    public long encode(CharSequence text, BitWriter out) throws InvalidDecodedTextException {
+        long start = out.getBitsWritten();
+        int context = FALLBACK;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            codeTables[context].write(out, character);
+            context = character < contextIndex.length ? contextIndex[character] : FALLBACK;
+        }
+        return out.getBitsWritten() - start;
+    }
+
+    /**
+     * Decodes the given number of characters from packed bits.
+     *
+     * @param bits the packed bits
+     * @param length the number of characters to decode
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(EncodedBits bits, int length) throws InvalidEncodedTextException {
+        BitReader in = bits.reader();
+        char[] text = new char[length];
+        int context = FALLBACK;
+        for (int i = 0; i < length; i++) {
+            int lone = loneSymbols[context];
+            char character = lone >= 0 ? (char) lone : decoders[context].decodeSymbol(in);
+            text[i] = character;
+            context = character < contextIndex.length ? contextIndex[character] : FALLBACK;
+        }
+        return new String(text);
+    }
+}
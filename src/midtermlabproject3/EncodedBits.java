@@ -0,0 +1,105 @@
+package midtermlabproject3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bit-packed result of a Huffman encoding.
+ * Holds the packed bytes together with the exact number of meaningful bits, since the last byte may be padded.
+ */
+public class EncodedBits {
+    private final byte[] data;
+    private final long bitLength;
+
+    /**
+     * Constructor for packed bits.
+     *
+     * @param data the packed bytes, most significant bit first
+     * @param bitLength the number of meaningful bits in the data
+     */
+    public EncodedBits(byte[] data, long bitLength) {
+        if (bitLength < 0 || bitLength > (long) data.length * 8)
+            throw new IllegalArgumentException("Bit length " + bitLength + " doesn't fit in " + data.length + " bytes.");
+
+        this.data = data;
+        this.bitLength = bitLength;
+    }
+
+    /**
+     * Packs a string of '0' and '1' characters into bits.
+     *
+     * @param text the string of bits to pack
+     * @return the packed bits
+     * @throws InvalidEncodedTextException if the text contains characters other than '0' and '1'
+     */
+    public static EncodedBits fromBitString(String text) throws InvalidEncodedTextException {
+        byte[] data = new byte[(text.length() + 7) / 8];
+        for (int i = 0; i < text.length(); i++) {
+            char bit = text.charAt(i);
+            if (bit != '0' && bit != '1')
+                throw new InvalidEncodedTextException("Invalid Action. The decoded text contains invalid code/s.");
+
+            if (bit == '1')
+                data[i >>> 3] |= (byte) (0x80 >>> (i & 7));
+        }
+        return new EncodedBits(data, text.length());
+    }
+
+    /**
+     * Gets the packed bytes.
+     *
+     * @return the packed bytes
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Gets the number of meaningful bits.
+     *
+     * @return the number of meaningful bits
+     */
+    public long getBitLength() {
+        return bitLength;
+    }
+
+    /**
+     * Creates a reader positioned at the first bit.
+     *
+     * @return a new bit reader over the packed bytes
+     */
+    public BitReader reader() {
+        return new BitReader(data);
+    }
+
+    /**
+     * Creates a reader positioned at the given bit, without reading the bits before it.
+     *
+     * @param bitOffset the index of the first bit to read, from 0 to {@link #getBitLength()}
+     * @return a new bit reader over the packed bytes
+     */
+    public BitReader reader(long bitOffset) {
+        if (bitOffset < 0 || bitOffset > bitLength)
+            throw new IndexOutOfBoundsException("Bit offset " + bitOffset + " is outside 0.." + bitLength + ".");
+
+        int start = (int) (bitOffset >>> 3);
+        BitReader in = new BitReader(ByteBuffer.wrap(data, start, data.length - start));
+        if ((bitOffset & 7) != 0)
+            in.readBits((int) (bitOffset & 7));
+        return in;
+    }
+
+    /**
+     * Renders the bits as a string of '0' and '1' characters for display.
+     *
+     * @return the bits as a string
+     */
+    @Override
+    public String toString() {
+        StringBuilder bits = new StringBuilder(Math.toIntExact(bitLength));
+        for (long i = 0; i < bitLength; i++) {
+            int b = data[(int) (i >>> 3)] >>> (7 - (int) (i & 7));
+            bits.append((b & 1) == 0 ? '0' : '1');
+        }
+        return bits.toString();
+    }
+}
@@ -0,0 +1,275 @@
+package midtermlabproject3;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Huffman tree stored as parallel primitive arrays instead of {@link Node} objects.
+ *
+ * Node ids {@code 0..n-1} are the leaves in order of increasing frequency, and ids {@code n..2n-2} are the
+ * internal nodes in the order they were created, so the root is always the last node and every child has
+ * a smaller id than its parent. Because the leaves are sorted and merged nodes come out in non-decreasing
+ * order, the tree is built with two queues in linear time after sorting, without a priority queue.
+ *
+ * A tree can be rebuilt many times; the arrays are only reallocated when the alphabet grows.
+ */
+public class FlatHuffmanTree {
+    private static final int SYMBOL_BITS = 17; // Enough for any char plus one
+    private static final long MAX_PACKED_FREQUENCY = Long.MAX_VALUE >>> SYMBOL_BITS;
+
+    private long[] freq = new long[0];
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int[] symbol = new int[0];
+    private int[] depth = new int[0];
+    private long[] sortKeys = new long[0];
+    private int leafCount;
+    private int nodeCount;
+
+    /**
+     * Builds a tree from a histogram indexed by symbol.
+     *
+     * @param histogram the frequency of each symbol; symbols with a zero frequency are left out
+     * @return the tree
+     */
+    public static FlatHuffmanTree of(long[] histogram) {
+        FlatHuffmanTree tree = new FlatHuffmanTree();
+        tree.build(histogram);
+        return tree;
+    }
+
+    /**
+     * Builds a tree from a frequency table. Every character in the table gets a leaf, even one with a zero
+     * frequency, as a user-entered table may list characters that are expected but not yet counted.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @return the tree
+     */
+    public static FlatHuffmanTree of(Map<Character, Long> frequencyTable) {
+        int size = 0;
+        for (char character : frequencyTable.keySet()) {
+            size = Math.max(size, character + 1);
+        }
+        long[] histogram = new long[size];
+        boolean[] present = new boolean[size];
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            histogram[entry.getKey()] = entry.getValue();
+            present[entry.getKey()] = true;
+        }
+        FlatHuffmanTree tree = new FlatHuffmanTree();
+        tree.build(histogram, present);
+        return tree;
+    }
+
+    /**
+     * Rebuilds this tree from a histogram indexed by symbol, reusing the existing arrays where possible.
+     *
+     * @param histogram the frequency of each symbol; symbols with a zero frequency are left out
+     */
+    public void build(long[] histogram) {
+        build(histogram, null);
+    }
+
+    /**
+     * Rebuilds this tree from a histogram, with a leaf for each present symbol.
+     *
+     * @param histogram the frequency of each symbol
+     * @param present the symbols that get a leaf, or null for those with a non-zero frequency
+     */
+    private void build(long[] histogram, boolean[] present) {
+        int n = 0;
+        for (int s = 0; s < histogram.length; s++) {
+            if (isPresent(histogram, present, s))
+                n++;
+        }
+        ensureCapacity(n);
+        leafCount = n;
+        nodeCount = n == 0 ? 0 : 2 * n - 1;
+        if (n == 0)
+            return;
+
+        sortLeaves(histogram, present, n);
+
+        // Two queues: leaves from the front of the array, internal nodes in creation order after them
+        int nextLeaf = 0, nextInternal = n;
+        for (int node = n; node < nodeCount; node++) {
+            int a = (nextInternal == node || (nextLeaf < n && freq[nextLeaf] <= freq[nextInternal])) ? nextLeaf++ : nextInternal++;
+            int b = (nextInternal == node || (nextLeaf < n && freq[nextLeaf] <= freq[nextInternal])) ? nextLeaf++ : nextInternal++;
+            left[node] = a;
+            right[node] = b;
+            symbol[node] = -1;
+            freq[node] = freq[a] + freq[b];
+        }
+    }
+
+    /**
+     * Fills an array indexed by symbol with the code length (leaf depth) of each symbol.
+     * Symbols that aren't in the tree get a length of 0.
+     *
+     * @param codeLengths the array to fill, at least as long as the histogram the tree was built from
+     * @return the longest code length
+     */
+    public int codeLengths(int[] codeLengths) {
+        Arrays.fill(codeLengths, 0);
+        if (nodeCount == 0)
+            return 0;
+
+        // Parents have larger ids than their children, so one pass from the root down assigns every depth
+        int maxDepth = 0;
+        depth[nodeCount - 1] = 0;
+        for (int node = nodeCount - 1; node >= leafCount; node--) {
+            depth[left[node]] = depth[node] + 1;
+            depth[right[node]] = depth[node] + 1;
+        }
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            codeLengths[symbol[leaf]] = depth[leaf];
+            maxDepth = Math.max(maxDepth, depth[leaf]);
+        }
+        return maxDepth;
+    }
+
+    /**
+     * Creates a {@link Node} view of the tree, e.g. for {@link HuffmanGUI}.
+     *
+     * @return the root node, or null if the tree is empty
+     */
+    public Node toNode() {
+        if (nodeCount == 0)
+            return null;
+
+        Node[] nodes = new Node[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            nodes[node] = isLeaf(node)
+                    ? new Node((char) symbol[node], freq[node])
+                    : new Node(freq[node], nodes[left[node]], nodes[right[node]]);
+        }
+        return nodes[nodeCount - 1];
+    }
+
+    /**
+     * Gets the id of the root node.
+     *
+     * @return the root id, or -1 if the tree is empty
+     */
+    public int getRoot() {
+        return nodeCount - 1;
+    }
+
+    /**
+     * Gets the number of nodes in the tree.
+     *
+     * @return the number of leaves and internal nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the number of leaves (symbols) in the tree.
+     *
+     * @return the number of leaves
+     */
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Checks if the given node is a leaf.
+     *
+     * @param node the node id
+     * @return true if the node is a leaf, false otherwise
+     */
+    public boolean isLeaf(int node) {
+        return node < leafCount;
+    }
+
+    /**
+     * Gets the frequency of the given node.
+     *
+     * @param node the node id
+     * @return the frequency of the node
+     */
+    public long getFrequency(int node) {
+        return freq[node];
+    }
+
+    /**
+     * Gets the left child of the given internal node.
+     *
+     * @param node the node id
+     * @return the id of the left child
+     */
+    public int getLeft(int node) {
+        return left[node];
+    }
+
+    /**
+     * Gets the right child of the given internal node.
+     *
+     * @param node the node id
+     * @return the id of the right child
+     */
+    public int getRight(int node) {
+        return right[node];
+    }
+
+    /**
+     * Gets the symbol of the given leaf.
+     *
+     * @param node the node id
+     * @return the symbol, or -1 for an internal node
+     */
+    public int getSymbol(int node) {
+        return symbol[node];
+    }
+
+    private static boolean isPresent(long[] histogram, boolean[] present, int s) {
+        return present != null ? present[s] : histogram[s] > 0;
+    }
+
+    private void sortLeaves(long[] histogram, boolean[] present, int n) {
+        // Sort (frequency, symbol) pairs as packed longs when the frequencies allow it
+        boolean packable = true;
+        int k = 0;
+        for (int s = 0; s < histogram.length; s++) {
+            if (isPresent(histogram, present, s)) {
+                packable &= histogram[s] >= 0 && histogram[s] <= MAX_PACKED_FREQUENCY;
+                sortKeys[k++] = s;
+            }
+        }
+
+        if (packable) {
+            for (int i = 0; i < n; i++) {
+                sortKeys[i] = (histogram[(int) sortKeys[i]] << SYMBOL_BITS) | sortKeys[i];
+            }
+            Arrays.sort(sortKeys, 0, n);
+            for (int i = 0; i < n; i++) {
+                symbol[i] = (int) (sortKeys[i] & ((1 << SYMBOL_BITS) - 1));
+                freq[i] = histogram[symbol[i]];
+            }
+        } else {
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) sortKeys[i];
+            }
+            Arrays.sort(order, (a, b) -> histogram[a] != histogram[b] ? Long.compare(histogram[a], histogram[b]) : Integer.compare(a, b));
+            for (int i = 0; i < n; i++) {
+                symbol[i] = order[i];
+                freq[i] = histogram[order[i]];
+            }
+        }
+    }
+
+    private void ensureCapacity(int leaves) {
+        int nodes = Math.max(1, 2 * leaves - 1);
+        if (freq.length >= nodes)
+            return;
+
+        freq = new long[nodes];
+        left = new int[nodes];
+        right = new int[nodes];
+        symbol = new int[nodes];
+        depth = new int[nodes];
+        sortKeys = new long[nodes];
+    }
+}
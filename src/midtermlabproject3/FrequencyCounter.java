@@ -0,0 +1,247 @@
+package midtermlabproject3;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Frequency counter that builds histograms in primitive arrays instead of boxed maps.
+ *
+ * Each sequential chunk counts into four interleaved {@code int} sub-histograms, so consecutive equal
+ * symbols don't stall on the same counter, and the sub-histograms are summed into a {@code long[]} at the end.
+ * Inputs larger than the parallel threshold are split across a {@link ForkJoinPool} and the per-chunk
+ * histograms are merged.
+ */
+public class FrequencyCounter {
+    /** Number of symbols counted per chunk before the input is split across threads. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * Constructor for a counter that uses the common fork-join pool.
+     */
+    public FrequencyCounter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Constructor for a counter that uses the given pool and chunk size.
+     *
+     * @param pool the pool that counts large inputs in parallel
+     * @param parallelThreshold the number of symbols counted per chunk, at least 1
+     */
+    public FrequencyCounter(ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold < 1)
+            throw new IllegalArgumentException("The parallel threshold must be positive.");
+
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Counts the characters of a text.
+     *
+     * @param text the text to count
+     * @return the histogram indexed by character, sized to the largest character present plus one
+     */
+    public long[] count(CharSequence text) {
+        if (text.length() <= parallelThreshold)
+            return countChars(text, 0, text.length());
+        return pool.invoke(new CharTask(text, 0, text.length()));
+    }
+
+    /**
+     * Counts the bytes of an array.
+     *
+     * @param data the bytes to count
+     * @return the 256-entry histogram indexed by unsigned byte value
+     */
+    public long[] count(byte[] data) {
+        return count(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Counts the remaining bytes of a buffer without moving its position.
+     *
+     * @param data the bytes to count
+     * @return the 256-entry histogram indexed by unsigned byte value
+     */
+    public long[] count(ByteBuffer data) {
+        long[] counts = new long[256];
+        countInto(data, counts);
+        return counts;
+    }
+
+    /**
+     * Adds the counts of the remaining bytes of a buffer to an existing histogram without moving its position.
+     *
+     * @param data the bytes to count
+     * @param counts the 256-entry histogram to add to
+     */
+    public void countInto(ByteBuffer data, long[] counts) {
+        if (data.remaining() <= parallelThreshold) {
+            countBytes(data, data.position(), data.limit(), counts);
+        } else {
+            addTo(counts, pool.invoke(new ByteTask(data, data.position(), data.limit())));
+        }
+    }
+
+    /**
+     * Adds one histogram to another. The source must not be longer than the target.
+     *
+     * @param target the histogram to add to
+     * @param source the histogram to add
+     */
+    public static void addTo(long[] target, long[] source) {
+        for (int i = 0; i < source.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    private static long[] countChars(CharSequence text, int from, int to) {
+        int[] h0 = new int[256], h1 = new int[256], h2 = new int[256], h3 = new int[256];
+        int[] wide = null; // Allocated on the first character above 255
+        int max = -1;
+
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            char c0 = text.charAt(i), c1 = text.charAt(i + 1), c2 = text.charAt(i + 2), c3 = text.charAt(i + 3);
+            if ((c0 | c1 | c2 | c3) < 256) {
+                h0[c0]++;
+                h1[c1]++;
+                h2[c2]++;
+                h3[c3]++;
+            } else {
+                for (int j = i; j < i + 4; j++) {
+                    char c = text.charAt(j);
+                    if (c < 256) {
+                        h0[c]++;
+                    } else {
+                        if (wide == null)
+                            wide = new int[1 << 16];
+                        wide[c]++;
+                        max = Math.max(max, c);
+                    }
+                }
+            }
+        }
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < 256) {
+                h0[c]++;
+            } else {
+                if (wide == null)
+                    wide = new int[1 << 16];
+                wide[c]++;
+                max = Math.max(max, c);
+            }
+        }
+
+        if (max < 0) {
+            for (int c = 255; c >= 0 && max < 0; c--) {
+                if (h0[c] + h1[c] + h2[c] + h3[c] > 0)
+                    max = c;
+            }
+        }
+
+        long[] counts = new long[max + 1];
+        for (int c = 0; c < Math.min(256, counts.length); c++) {
+            counts[c] = (long) h0[c] + h1[c] + h2[c] + h3[c];
+        }
+        if (wide != null) {
+            for (int c = 256; c < counts.length; c++) {
+                counts[c] = wide[c];
+            }
+        }
+        return counts;
+    }
+
+    private static void countBytes(ByteBuffer data, int from, int to, long[] counts) {
+        // Each sub-histogram sees at most a quarter of the range, so the int counters can't overflow
+        int[] h0 = new int[256], h1 = new int[256], h2 = new int[256], h3 = new int[256];
+
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            h0[data.get(i) & 0xFF]++;
+            h1[data.get(i + 1) & 0xFF]++;
+            h2[data.get(i + 2) & 0xFF]++;
+            h3[data.get(i + 3) & 0xFF]++;
+        }
+        for (; i < to; i++) {
+            h0[data.get(i) & 0xFF]++;
+        }
+
+        for (int b = 0; b < 256; b++) {
+            counts[b] += (long) h0[b] + h1[b] + h2[b] + h3[b];
+        }
+    }
+
+    private static long[] merge(long[] a, long[] b) {
+        if (a.length < b.length) {
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        addTo(a, b);
+        return a;
+    }
+
+    /**
+     * Fork-join task that counts a range of characters.
+     */
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private class CharTask extends RecursiveTask<long[]> {
+        private final CharSequence text;
+        private final int from, to;
+
+        CharTask(CharSequence text, int from, int to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= parallelThreshold)
+                return countChars(text, from, to);
+
+            int middle = (from + to) >>> 1;
+            CharTask left = new CharTask(text, from, middle);
+            left.fork();
+            long[] right = new CharTask(text, middle, to).compute();
+            return merge(left.join(), right);
+        }
+    }
+
+    /**
+     * Fork-join task that counts a range of bytes.
+     */
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private class ByteTask extends RecursiveTask<long[]> {
+        private final ByteBuffer data;
+        private final int from, to;
+
+        ByteTask(ByteBuffer data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= parallelThreshold) {
+                long[] counts = new long[256];
+                countBytes(data, from, to, counts);
+                return counts;
+            }
+
+            int middle = (from + to) >>> 1;
+            ByteTask left = new ByteTask(data, from, middle);
+            left.fork();
+            long[] right = new ByteTask(data, middle, to).compute();
+            return merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package midtermlabproject3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Loopback socket front end for a {@link HuffmanBatchService}.
+ *
+ * Each connection carries a sequence of binary requests, and responses come back in request order, so a
+ * client may pipeline many requests before reading any response. All numbers are big-endian:
+ * <ul>
+ *     <li>Encode: {@code 'E'}, int byte count, UTF-8 text. Response: status byte, long bit length, int byte count, packed bytes.</li>
+ *     <li>Decode: {@code 'D'}, int character count, long bit length, int byte count, packed bytes. Response: status byte, int byte count, UTF-8 text.</li>
+ * </ul>
+ * The status byte is {@link #STATUS_OK}, or {@link #STATUS_ERROR} followed by a {@code writeUTF} message.
+ */
+public class HuffmanBatchServer implements AutoCloseable {
+    /** Request type of an encode request. */
+    public static final byte ENCODE = 'E';
+
+    /** Request type of a decode request. */
+    public static final byte DECODE = 'D';
+
+    /** Status byte of a successful response. */
+    public static final byte STATUS_OK = 0;
+
+    /** Status byte of a failed request, followed by the error message. */
+    public static final byte STATUS_ERROR = 1;
+
+    private static final int MAX_PAYLOAD = 1 << 26; // Rejects corrupt length prefixes before allocating
+
+    private final HuffmanBatchService service;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = newConnectionExecutor();
+
+    /**
+     * Constructor for a server listening on the loopback interface.
+     *
+     * @param service the service that handles the requests
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port can't be bound
+     */
+    public HuffmanBatchServer(HuffmanBatchService service, int port) throws IOException {
+        this.service = service;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed. Each connection is served on its own threads.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed())
+                    System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections. Open connections are served until their clients disconnect.
+     *
+     * @throws IOException if closing the server socket fails
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdown();
+    }
+
+    private static ExecutorService newConnectionExecutor() {
+        // Connection threads block on I/O, so without virtual threads they need an unbounded pool
+        ExecutorService executor = HuffmanBatchService.newVirtualThreadExecutor();
+        return executor != null ? executor : Executors.newCachedThreadPool(HuffmanBatchService::newDaemonThread);
+    }
+
+    private void handle(Socket socket) {
+        // Responses are written in request order by a second thread, so reading never waits on encoding
+        BlockingQueue<CompletableFuture<Response>> pending = new LinkedBlockingQueue<>();
+        CompletableFuture<Response> endOfConnection = CompletableFuture.completedFuture(null);
+
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            connections.execute(() -> {
+                try {
+                    readRequests(in, pending);
+                } catch (IOException e) {
+                    // The client disconnected or sent a malformed request; stop after the pending responses
+                } finally {
+                    pending.add(endOfConnection);
+                }
+            });
+
+            while (true) {
+                CompletableFuture<Response> next = pending.take();
+                if (next == endOfConnection)
+                    break;
+                writeResponse(next, out);
+                if (pending.isEmpty())
+                    out.flush();
+            }
+            out.flush();
+        } catch (IOException e) {
+            // The client went away while responses were being written
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readRequests(DataInputStream in, BlockingQueue<CompletableFuture<Response>> pending) throws IOException {
+        while (true) {
+            int type = in.read();
+            if (type < 0)
+                return;
+
+            if (type == ENCODE) {
+                String text = new String(readPayload(in), StandardCharsets.UTF_8);
+                pending.add(service.encode(text).thenApply(Response::encoded));
+            } else if (type == DECODE) {
+                int length = in.readInt();
+                long bitLength = in.readLong();
+                byte[] data = readPayload(in);
+                // Every code is at least one bit long unless the codebook has a single symbol
+                long maxLength = service.getCodec().getCodebook().getSymbolCount() > 1 ? bitLength : MAX_PAYLOAD;
+                if (length < 0 || bitLength < 0 || bitLength > 8L * data.length || length > maxLength)
+                    throw new IOException("Invalid decode request.");
+                pending.add(service.decode(new EncodedBits(data, bitLength), length).thenApply(Response::decoded));
+            } else {
+                throw new IOException("Unknown request type " + type + ".");
+            }
+        }
+    }
+
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > MAX_PAYLOAD)
+            throw new IOException("Invalid payload size " + size + ".");
+        byte[] data = new byte[size];
+        in.readFully(data);
+        return data;
+    }
+
+    private static void writeResponse(CompletableFuture<Response> future, DataOutputStream out) throws IOException {
+        Response response;
+        try {
+            response = future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            out.writeByte(STATUS_ERROR);
+            out.writeUTF(String.valueOf(cause.getMessage()));
+            return;
+        }
+
+        out.writeByte(STATUS_OK);
+        if (response.bits != null) {
+            out.writeLong(response.bits.getBitLength());
+            out.writeInt(response.bits.getData().length);
+            out.write(response.bits.getData());
+        } else {
+            byte[] text = response.text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+    }
+
+    /**
+     * Client for a {@link HuffmanBatchServer}. A client is one connection and isn't thread-safe; requests
+     * can be pipelined by sending several before receiving the responses in the same order.
+     */
+    public static class Client implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        /**
+         * Constructor for a client connected to a server on the loopback interface.
+         *
+         * @param port the port of the server
+         * @throws IOException if connecting fails
+         */
+        public Client(int port) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Sends an encode request without waiting for the response.
+         *
+         * @param text the text to encode
+         * @throws IOException if sending fails
+         */
+        public void sendEncode(String text) throws IOException {
+            byte[] data = text.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(ENCODE);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        /**
+         * Sends a decode request without waiting for the response.
+         *
+         * @param bits the packed bits
+         * @param length the number of characters to decode
+         * @throws IOException if sending fails
+         */
+        public void sendDecode(EncodedBits bits, int length) throws IOException {
+            out.writeByte(DECODE);
+            out.writeInt(length);
+            out.writeLong(bits.getBitLength());
+            out.writeInt(bits.getData().length);
+            out.write(bits.getData());
+        }
+
+        /**
+         * Sends all buffered requests to the server.
+         *
+         * @throws IOException if sending fails
+         */
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Receives the response to an encode request.
+         *
+         * @return the packed bits
+         * @throws IOException if receiving fails or the server reported an error
+         */
+        public EncodedBits receiveEncoded() throws IOException {
+            checkStatus();
+            long bitLength = in.readLong();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new EncodedBits(data, bitLength);
+        }
+
+        /**
+         * Receives the response to a decode request.
+         *
+         * @return the decoded text
+         * @throws IOException if receiving fails or the server reported an error
+         */
+        public String receiveDecoded() throws IOException {
+            checkStatus();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Encodes text on the server and waits for the result.
+         *
+         * @param text the text to encode
+         * @return the packed bits
+         * @throws IOException if the request fails
+         */
+        public EncodedBits encode(String text) throws IOException {
+            sendEncode(text);
+            flush();
+            return receiveEncoded();
+        }
+
+        /**
+         * Decodes packed bits on the server and waits for the result.
+         *
+         * @param bits the packed bits
+         * @param length the number of characters to decode
+         * @return the decoded text
+         * @throws IOException if the request fails
+         */
+        public String decode(EncodedBits bits, int length) throws IOException {
+            sendDecode(bits, length);
+            flush();
+            return receiveDecoded();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        private void checkStatus() throws IOException {
+            int status = in.read();
+            if (status < 0)
+                throw new EOFException("The server closed the connection.");
+            if (status != STATUS_OK)
+                throw new IOException("Server error: " + in.readUTF());
+        }
+    }
+
+    /**
+     * Result of one request: packed bits for an encode, text for a decode.
+     */
+    private record Response(EncodedBits bits, String text) {
+        static Response encoded(EncodedBits bits) {
+            return new Response(bits, null);
+        }
+
+        static Response decoded(String text) {
+            return new Response(null, text);
+        }
+    }
+}
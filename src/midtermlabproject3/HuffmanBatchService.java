@@ -0,0 +1,272 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent service that runs many small encode and decode requests against one shared {@link HuffmanCodec}.
+ *
+ * Requests are queued and drained in batches of up to {@code maxBatchSize} by a bounded number of workers,
+ * so a burst of tiny requests costs one task hand-off per batch instead of one per request, and each
+ * worker reuses its output buffer across the batch. Workers run on virtual threads when the JDK provides
+ * them (Java 21+) and on a fixed pool of platform threads otherwise.
+ */
+public class HuffmanBatchService implements AutoCloseable {
+    /** Default maximum number of requests handled by one worker task. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private final HuffmanCodec codec;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+    private final int maxWorkers;
+    private final ConcurrentLinkedQueue<Request> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong completedRequests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructor for a service with the default executor, batch size and one worker per processor.
+     *
+     * @param codec the codec shared by all requests
+     */
+    public HuffmanBatchService(HuffmanCodec codec) {
+        this(codec, newDefaultExecutor(), DEFAULT_MAX_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for a service with the given executor and batching.
+     *
+     * @param codec the codec shared by all requests
+     * @param executor the executor that runs the workers; it is shut down when the service is closed
+     * @param maxBatchSize the maximum number of requests handled by one worker task, at least 1
+     * @param maxWorkers the maximum number of workers draining the queue at once, at least 1
+     */
+    public HuffmanBatchService(HuffmanCodec codec, ExecutorService executor, int maxBatchSize, int maxWorkers) {
+        if (maxBatchSize < 1 || maxWorkers < 1)
+            throw new IllegalArgumentException("The batch size and number of workers must be positive.");
+
+        this.codec = codec;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWorkers = maxWorkers;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor when the JDK has one, or a fixed pool of platform threads.
+     *
+     * @return the executor
+     */
+    public static ExecutorService newDefaultExecutor() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        return executor != null ? executor : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), HuffmanBatchService::newDaemonThread);
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor, looked up reflectively so the project still compiles and
+     * runs on Java 17.
+     *
+     * @return the executor, or null if the JDK has no virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Thread factory for the platform-thread fallbacks, so idle pools don't keep the JVM alive.
+     *
+     * @param runnable the task of the thread
+     * @return the daemon thread
+     */
+    static Thread newDaemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "huffman-batch");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Queues text for encoding.
+     *
+     * @param text the text to encode
+     * @return a future completed with the packed bits, or exceptionally if a character has no code
+     */
+    public CompletableFuture<EncodedBits> encode(String text) {
+        Request request = new Request(text, null, 0);
+        submit(request);
+        return request.result.thenApply(EncodedBits.class::cast);
+    }
+
+    /**
+     * Queues packed bits for decoding.
+     *
+     * @param bits the packed bits
+     * @param length the number of characters to decode
+     * @return a future completed with the decoded text, or exceptionally if the bits don't match any code
+     */
+    public CompletableFuture<String> decode(EncodedBits bits, int length) {
+        Request request = new Request(null, bits, length);
+        submit(request);
+        return request.result.thenApply(String.class::cast);
+    }
+
+    /**
+     * Gets the codec shared by all requests.
+     *
+     * @return the codec
+     */
+    public HuffmanCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets the number of requests completed so far.
+     *
+     * @return the number of completed requests
+     */
+    public long getCompletedRequests() {
+        return completedRequests.get();
+    }
+
+    /**
+     * Gets the average number of requests handled per worker task.
+     *
+     * @return the average batch size, or 0 if nothing was handled yet
+     */
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return count == 0 ? 0 : (double) completedRequests.get() / count;
+    }
+
+    /**
+     * Stops accepting requests, finishes the queued ones and shuts the executor down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued();
+    }
+
+    private void failQueued() {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(new RejectedExecutionException("The service is closed."));
+        }
+    }
+
+    private void submit(Request request) {
+        if (closed)
+            throw new RejectedExecutionException("The service is closed.");
+
+        queue.add(request);
+        startWorker();
+    }
+
+    private void startWorker() {
+        int workers;
+        do {
+            workers = activeWorkers.get();
+            if (workers >= maxWorkers)
+                return;
+        } while (!activeWorkers.compareAndSet(workers, workers + 1));
+
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            activeWorkers.decrementAndGet();
+            failQueued();
+        }
+    }
+
+    private void drain() {
+        // One output buffer and bit writer per batch; flushing after each request leaves it byte-aligned
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        BitWriter out = new BitWriter(bytes);
+        while (true) {
+            int handled = 0;
+            Request request;
+            while (handled < maxBatchSize && (request = queue.poll()) != null) {
+                handle(request, bytes, out);
+                handled++;
+            }
+            if (handled > 0) {
+                batches.incrementAndGet();
+                completedRequests.addAndGet(handled);
+                if (handled == maxBatchSize) {
+                    // Yield between batches so other tasks on the executor get a turn
+                    startWorkerOrContinue();
+                    return;
+                }
+            }
+
+            activeWorkers.decrementAndGet();
+            // A request queued after the last poll may have seen all workers busy, so check once more
+            if (queue.isEmpty())
+                return;
+            int workers = activeWorkers.get();
+            if (workers >= maxWorkers || !activeWorkers.compareAndSet(workers, workers + 1))
+                return;
+        }
+    }
+
+    private void startWorkerOrContinue() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drain(); // The executor is shutting down; finish the queue on this thread
+        }
+    }
+
+    private void handle(Request request, ByteArrayOutputStream bytes, BitWriter out) {
+        try {
+            if (request.text != null) {
+                bytes.reset();
+                long bitLength = codec.encode(request.text, out);
+                out.flush();
+                request.result.complete(new EncodedBits(bytes.toByteArray(), bitLength));
+            } else {
+                request.result.complete(codec.decode(request.bits, request.length));
+            }
+        } catch (Throwable e) {
+            // Errors are caught too, so the future always completes and this worker keeps its slot
+            if (request.text != null) {
+                // Drop the bytes and partial bits of the failed encode so they don't leak into the next request
+                out.flush();
+                bytes.reset();
+            }
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A queued encode (text set) or decode (bits set) request.
+     */
+    private static final class Request {
+        private final String text;
+        private final EncodedBits bits;
+        private final int length;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Request(String text, EncodedBits bits, int length) {
+            this.text = text;
+            this.bits = bits;
+            this.length = length;
+        }
+    }
+}
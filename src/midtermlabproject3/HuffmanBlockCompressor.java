@@ -0,0 +1,202 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Block compressor that splits the input into fixed-size blocks which are encoded and decoded in parallel.
+ *
+ * All blocks share one canonical codebook. Each block starts on a byte boundary, and a block index records
+ * where each compressed block ends, so blocks can be decoded independently of each other.
+ *
+ * The container consists of a magic number, the original length, the block size, the codebook header
+ * (omitted for empty input), the block count, the end offset of each compressed block and the block data.
+ */
+public class HuffmanBlockCompressor {
+    /** Magic number at the start of every block container ("HUB1"). */
+    public static final int MAGIC = 0x48554231;
+
+    /** Default number of input bytes per block. */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+    private final FrequencyCounter frequencyCounter;
+
+    /**
+     * Constructor for a block compressor that uses the common pool and the default block size.
+     */
+    public HuffmanBlockCompressor() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor for a block compressor with the given pool and block size.
+     *
+     * @param pool the pool that encodes and decodes blocks
+     * @param blockSize the number of input bytes per block, at least 1
+     */
+    public HuffmanBlockCompressor(ForkJoinPool pool, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("The block size must be positive.");
+
+        this.pool = pool;
+        this.blockSize = blockSize;
+        this.frequencyCounter = new FrequencyCounter(pool, FrequencyCounter.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Compresses the given bytes into a block container.
+     *
+     * @param data the bytes to compress
+     * @return the block container
+     */
+    public byte[] compress(byte[] data) {
+        ByteHuffmanCodec codec = null;
+        List<byte[]> blocks = new ArrayList<>();
+
+        if (data.length > 0) {
+            ByteHuffmanCodec blockCodec = ByteHuffmanCodec.fromHistogram(frequencyCounter.count(data));
+            codec = blockCodec;
+
+            List<Callable<byte[]>> tasks = new ArrayList<>();
+            for (int start = 0; start < data.length; start += blockSize) {
+                int from = start;
+                int to = (int) Math.min(data.length, (long) start + blockSize);
+                tasks.add(() -> encodeBlock(data, from, to, blockCodec));
+            }
+            blocks = invokeAll(pool, tasks);
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeLong(data.length);
+            out.writeInt(blockSize);
+            if (codec == null) {
+                out.flush();
+                return bytes.toByteArray();
+            }
+
+            codec.write(out);
+            out.writeInt(blocks.size());
+            long offset = 0;
+            for (byte[] block : blocks) {
+                offset += block.length;
+                out.writeLong(offset);
+            }
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by in-memory streams
+        }
+    }
+
+    /**
+     * Decompresses a block container written by {@link #compress(byte[])}.
+     *
+     * @param container the block container
+     * @return the original bytes
+     * @throws IOException if the container is malformed or corrupt
+     */
+    public byte[] decompress(byte[] container) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(container);
+        DataInputStream in = new DataInputStream(bytes);
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a Huffman block container.");
+
+        long length = in.readLong();
+        int size = in.readInt();
+        if (length > Integer.MAX_VALUE - 8 || length < 0 || size < 1)
+            throw new IOException("Invalid block container header.");
+        byte[] output = new byte[(int) length];
+        if (length == 0)
+            return output;
+
+        ByteHuffmanCodec codec = ByteHuffmanCodec.read(in);
+        int blockCount = in.readInt();
+        if (blockCount != (length + size - 1) / size)
+            throw new IOException("Invalid block count " + blockCount + ".");
+
+        long[] ends = new long[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            ends[i] = in.readLong();
+            if (ends[i] < (i == 0 ? 0 : ends[i - 1]))
+                throw new IOException("Invalid block index.");
+        }
+        int dataStart = container.length - bytes.available();
+        if (ends[blockCount - 1] > container.length - dataStart)
+            throw new IOException("Truncated block container.");
+
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < blockCount; i++) {
+            int from = dataStart + (int) (i == 0 ? 0 : ends[i - 1]);
+            int to = dataStart + (int) ends[i];
+            int outFrom = i * size;
+            int outTo = (int) Math.min(length, (long) outFrom + size);
+            tasks.add(() -> {
+                codec.decode(new BitReader(ByteBuffer.wrap(container, from, to - from)), ByteBuffer.wrap(output, outFrom, outTo - outFrom));
+                return null;
+            });
+        }
+
+        try {
+            invokeAll(pool, tasks);
+        } catch (InvalidEncodedTextException e) {
+            throw new IOException("Corrupt block container.", e);
+        }
+        return output;
+    }
+
+    /**
+     * Gets the number of input bytes per block.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private static byte[] encodeBlock(byte[] data, int from, int to, ByteHuffmanCodec codec) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((to - from) / 2 + 16);
+        BitWriter bits = new BitWriter(bytes);
+        codec.encode(ByteBuffer.wrap(data, from, to - from), bits);
+        bits.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Runs the tasks on the pool and collects their results in order, rethrowing runtime exceptions of the tasks.
+     */
+    static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing blocks.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+}
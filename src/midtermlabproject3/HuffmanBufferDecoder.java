@@ -0,0 +1,121 @@
+package midtermlabproject3;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Resumable decoder that reads packed codes from a byte buffer and writes the characters into a char buffer
+ * owned by the caller.
+ *
+ * Unlike {@link HuffmanCodec#decode(EncodedBits, int)}, which allocates a bit reader, a char array and the
+ * resulting string on every call, a decoder allocates nothing once it has been created. It decodes until the
+ * output buffer is full ({@link CodingResult.Status#OVERFLOW}) or the input runs out in the middle of a code
+ * ({@link CodingResult.Status#UNDERFLOW}), keeping the bits it has already taken from the input, so the next
+ * call continues exactly where this one stopped. The number of characters to decode is set by the room in
+ * the output buffer, since the padding at the end of the bits could otherwise decode to extra characters.
+ *
+ * A decoder is obtained from {@link HuffmanCodec#newDecoder()}. It holds the bit state of one decoding at a
+ * time and isn't thread-safe; use one per thread and {@link #reset()} it between texts.
+ */
+public final class HuffmanBufferDecoder {
+    /** Longest code that a 64-bit window refilled a byte at a time always holds completely. */
+    static final int MAX_WINDOW_CODE_LENGTH = 57;
+
+    private final TableDecoder decoder;
+    private final int maxCodeLength;
+    private final int singleSymbol; // The only character when the codebook has one symbol, otherwise -1
+    private final CodingResult result = new CodingResult();
+    private long window;  // Bits taken from the input but not decoded yet, left-aligned
+    private int bitCount; // Number of valid bits in window
+    private long bitsRead; // Total number of code bits decoded since the last reset
+
+    HuffmanBufferDecoder(TableDecoder decoder, int singleSymbol) {
+        if (decoder.getMaxCodeLength() > MAX_WINDOW_CODE_LENGTH)
+            throw new IllegalArgumentException("Codes longer than " + MAX_WINDOW_CODE_LENGTH + " bits can't be decoded into buffers.");
+
+        this.decoder = decoder;
+        this.maxCodeLength = Math.max(1, decoder.getMaxCodeLength());
+        this.singleSymbol = singleSymbol;
+    }
+
+    /**
+     * Decodes characters until the output buffer is full or the input runs out, advancing the position of
+     * the input past the bytes that were taken and the position of the output past the characters that were
+     * written. Up to 8 bytes may be taken ahead of the last decoded code; see {@link #getBufferedBits()}.
+     *
+     * @param in the packed codes
+     * @param out the buffer that receives the characters; its remaining room is the number of characters to decode
+     * @return the result of this call, valid until the next call on this decoder
+     * @throws InvalidEncodedTextException if the bits don't match any code; the characters before them are decoded
+     */
+    public CodingResult decode(ByteBuffer in, CharBuffer out) throws InvalidEncodedTextException {
+        if (singleSymbol >= 0) {
+            // Zero-length codes: every character is the lone symbol and no input is needed
+            int count = out.remaining();
+            while (out.hasRemaining()) {
+                out.put((char) singleSymbol);
+            }
+            return result.set(CodingResult.Status.OVERFLOW, count, 0);
+        }
+
+        long start = bitsRead;
+        int count = 0;
+        while (out.hasRemaining()) {
+            if (bitCount < maxCodeLength) {
+                while (bitCount <= 56 && in.hasRemaining()) {
+                    window |= (in.get() & 0xFFL) << (56 - bitCount);
+                    bitCount += 8;
+                }
+            }
+
+            int entry = decoder.lookupWindow(window);
+            int length = entry >>> 16;
+            if (entry == 0 || length > bitCount) {
+                // With every byte of the input taken, a code cut off by the end of the input continues in the next one
+                result.set(CodingResult.Status.UNDERFLOW, count, bitsRead - start);
+                if (bitCount < maxCodeLength)
+                    return result;
+                throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+            }
+
+            out.put((char) entry);
+            window <<= length;
+            bitCount -= length;
+            bitsRead += length;
+            count++;
+        }
+        return result.set(CodingResult.Status.OVERFLOW, count, bitsRead - start);
+    }
+
+    /**
+     * Discards any buffered bits and the bit count, so the decoder can start a new text.
+     *
+     * @return this decoder
+     */
+    public HuffmanBufferDecoder reset() {
+        window = 0;
+        bitCount = 0;
+        bitsRead = 0;
+        return this;
+    }
+
+    /**
+     * Gets the number of code bits decoded since the last reset.
+     *
+     * @return the number of bits decoded
+     */
+    public long getBitsRead() {
+        return bitsRead;
+    }
+
+    /**
+     * Gets the number of bits taken from the input but not decoded yet. After the last character of a
+     * text, moving the input position back by {@code getBufferedBits() / 8} bytes gives the first byte
+     * after the text's codes and padding.
+     *
+     * @return the number of buffered bits
+     */
+    public int getBufferedBits() {
+        return bitCount;
+    }
+}
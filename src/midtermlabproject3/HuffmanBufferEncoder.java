@@ -0,0 +1,182 @@
+package midtermlabproject3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.util.Objects;
+
+/**
+ * Resumable encoder that reads characters from a {@link CharSequence} or {@link CharBuffer} and packs their
+ * codes into a byte buffer owned by the caller, most significant bit first.
+ *
+ * Unlike {@link HuffmanCodec#encode(CharSequence)}, which allocates a stream, a bit writer buffer and the
+ * result array on every call, an encoder allocates nothing once it has been created: when the output buffer
+ * fills up, the call returns {@link CodingResult.Status#OVERFLOW} and keeps up to 31 pending bits, so the next
+ * call continues exactly where this one stopped. This holds for any output size: a code longer than 32 bits
+ * that doesn't fit is written in part, and the next call, which starts at the same character, finishes it.
+ * {@link #finish(ByteBuffer)} pads the last byte.
+ *
+ * An encoder is obtained from {@link HuffmanCodec#newEncoder()}. It holds the bit state of one encoding at a
+ * time and isn't thread-safe; use one per thread and {@link #reset()} it between texts.
+ */
+public final class HuffmanBufferEncoder {
+    private static final int MAX_PACKED_LENGTH = 32;
+
+    private final CodeTable codeTable;
+    private final CodingResult result = new CodingResult();
+    private long bitBuffer;   // Pending bits, right-aligned
+    private int bitCount;     // Number of pending bits in bitBuffer
+    private long bitsWritten; // Total number of code bits encoded since the last reset
+    private int longCodeOffset; // Number of bits of a long code already buffered when the output filled up
+
+    HuffmanBufferEncoder(CodeTable codeTable) {
+        this.codeTable = codeTable;
+    }
+
+    /**
+     * Encodes the remaining characters of a char buffer, advancing its position past the characters that
+     * were encoded and the position of the output buffer past the bytes that were written.
+     *
+     * @param in the characters to encode
+     * @param out the buffer that receives the packed bytes
+     * @return the result of this call, valid until the next call on this encoder
+     * @throws InvalidDecodedTextException if a character has no code; the characters before it are encoded
+     */
+    public CodingResult encode(CharBuffer in, ByteBuffer out) throws InvalidDecodedTextException {
+        int position = in.position();
+        try {
+            return encode(in, 0, in.remaining(), out);
+        } finally {
+            in.position(position + result.getSymbols());
+        }
+    }
+
+    /**
+     * Encodes the characters from {@code from} (inclusive) to {@code to} (exclusive) of a text, advancing the
+     * position of the output buffer past the bytes that were written. After an overflow, the next call
+     * continues at {@code from + result.getSymbols()}.
+     *
+     * @param text the text to encode
+     * @param from the index of the first character to encode
+     * @param to the index after the last character to encode
+     * @param out the buffer that receives the packed bytes
+     * @return the result of this call, valid until the next call on this encoder
+     * @throws IndexOutOfBoundsException if the range is outside the text
+     * @throws InvalidDecodedTextException if a character has no code; the characters before it are encoded
+     */
+    public CodingResult encode(CharSequence text, int from, int to, ByteBuffer out) throws InvalidDecodedTextException {
+        Objects.checkFromToIndex(from, to, text.length());
+        long start = bitsWritten;
+        for (int i = from; i < to; i++) {
+            if (bitCount >= MAX_PACKED_LENGTH) {
+                drain(out);
+                if (bitCount >= MAX_PACKED_LENGTH)
+                    return result.set(CodingResult.Status.OVERFLOW, i - from, bitsWritten - start);
+            }
+
+            char character = text.charAt(i);
+            int length = codeTable.getLength(character);
+            if (length < 0) {
+                result.set(CodingResult.Status.UNDERFLOW, i - from, bitsWritten - start);
+                throw new InvalidDecodedTextException("Invalid Action. Some character/s in the text doesn't match any of the provided character codes.");
+            }
+
+            if (length <= MAX_PACKED_LENGTH) {
+                bitBuffer = bitBuffer << length | (codeTable.getCode(character) & 0xFFFFFFFFL);
+                bitCount += length;
+            } else if (!writeLongCode(codeTable.getLongCode(character), out)) {
+                return result.set(CodingResult.Status.OVERFLOW, i - from, bitsWritten - start);
+            }
+            bitsWritten += length;
+        }
+
+        drain(out);
+        CodingResult.Status status = bitCount >= 8 ? CodingResult.Status.OVERFLOW : CodingResult.Status.UNDERFLOW;
+        return result.set(status, to - from, bitsWritten - start);
+    }
+
+    /**
+     * Writes the pending bits, padding the last partial byte with zero bits. Characters encoded after
+     * finishing start on a new byte boundary.
+     *
+     * @param out the buffer that receives the remaining bytes
+     * @return {@link CodingResult.Status#UNDERFLOW} once every bit is written, or
+     *         {@link CodingResult.Status#OVERFLOW} if the buffer is full and finish must be called again
+     */
+    public CodingResult finish(ByteBuffer out) {
+        drain(out);
+        if (bitCount >= 8 || (bitCount > 0 && !out.hasRemaining()))
+            return result.set(CodingResult.Status.OVERFLOW, 0, 0);
+
+        if (bitCount > 0) {
+            out.put((byte) (bitBuffer << (8 - bitCount)));
+            bitCount = 0;
+        }
+        return result.set(CodingResult.Status.UNDERFLOW, 0, 0);
+    }
+
+    /**
+     * Discards any pending bits and the bit count, so the encoder can start a new text.
+     *
+     * @return this encoder
+     */
+    public HuffmanBufferEncoder reset() {
+        bitBuffer = 0;
+        bitCount = 0;
+        bitsWritten = 0;
+        longCodeOffset = 0;
+        return this;
+    }
+
+    /**
+     * Gets the number of code bits encoded since the last reset, not counting the padding added by
+     * {@link #finish(ByteBuffer)}.
+     *
+     * @return the number of bits encoded
+     */
+    public long getBitsWritten() {
+        return bitsWritten;
+    }
+
+    /**
+     * Gets the number of encoded bits that haven't been written to an output buffer yet.
+     *
+     * @return the number of pending bits
+     */
+    public int getPendingBits() {
+        return bitCount;
+    }
+
+    /**
+     * Writes a code longer than 32 bits one bit at a time, draining whenever 32 bits are pending. If the
+     * output fills up, the number of bits already buffered is kept and the code is resumed from there.
+     */
+    private boolean writeLongCode(String code, ByteBuffer out) {
+        for (; longCodeOffset < code.length(); longCodeOffset++) {
+            if (bitCount >= MAX_PACKED_LENGTH) {
+                drain(out);
+                if (bitCount >= MAX_PACKED_LENGTH)
+                    return false;
+            }
+            bitBuffer = bitBuffer << 1 | (code.charAt(longCodeOffset) == '1' ? 1 : 0);
+            bitCount++;
+        }
+        longCodeOffset = 0;
+        return true;
+    }
+
+    /**
+     * Moves as many complete bytes of the pending bits to the output as it has room for.
+     */
+    private void drain(ByteBuffer out) {
+        if (bitCount >= MAX_PACKED_LENGTH && out.remaining() >= 4) {
+            bitCount -= MAX_PACKED_LENGTH;
+            int word = (int) (bitBuffer >>> bitCount);
+            out.putInt(out.order() == ByteOrder.BIG_ENDIAN ? word : Integer.reverseBytes(word));
+        }
+        while (bitCount >= 8 && out.hasRemaining()) {
+            bitCount -= 8;
+            out.put((byte) (bitBuffer >>> bitCount));
+        }
+    }
+}
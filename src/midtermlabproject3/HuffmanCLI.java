@@ -1,11 +1,17 @@
 package midtermlabproject3;
 
 import javax.swing.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -17,6 +23,10 @@ import java.util.Scanner;
 public class HuffmanCLI {
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runCommand(args));
+        }
+
         HuffmanEncoder huffman = new HuffmanEncoder();
         Scanner scanner = new Scanner(System.in);
         String text = null;
@@ -82,6 +92,156 @@ public class HuffmanCLI {
         }
     }
 
+    /**
+     * Method that runs a non-interactive command given on the command line.
+     * Supported commands are {@code compress [--mmap] <in> <out>}, {@code decompress <in> <out>} and the
+     * single-pass {@code compress --adaptive <in> <out>} / {@code decompress --adaptive <in> <out>}, where
+     * {@code -} stands for standard input or output. {@code serve <port> <file>} runs a local batch
+     * encode/decode server with a codebook built from the given text file. {@code batch [--parallelism N]
+     * <dir|glob> <out dir>} compresses many files in parallel without any GUI and prints a CSV report.
+     * {@code train <id> <codebook file> <corpus files...>} trains a {@link StaticCodebook} for short messages.
+     *
+     * @param args the command-line arguments
+     * @return the process exit code, 0 on success
+     */
+    public static int runCommand(String[] args) {
+        HuffmanFileCompressor compressor = new HuffmanFileCompressor();
+
+        try {
+            if (args.length == 3 && args[0].equals("compress")) {
+                long start = System.nanoTime();
+                long originalSize = Files.size(Paths.get(args[1]));
+                long compressedSize = compressor.compress(Paths.get(args[1]), Paths.get(args[2]));
+                System.out.printf("Compressed %d bytes to %d bytes in %.1f ms%n", originalSize, compressedSize, (System.nanoTime() - start) / 1e6);
+                return 0;
+            } else if (args.length == 4 && args[0].equals("compress") && args[1].equals("--mmap")) {
+                long start = System.nanoTime();
+                long originalSize = Files.size(Paths.get(args[2]));
+                long compressedSize = new MappedFileCompressor().compress(Paths.get(args[2]), Paths.get(args[3]));
+                System.out.printf("Compressed %d bytes to %d bytes in %.1f ms%n", originalSize, compressedSize, (System.nanoTime() - start) / 1e6);
+                return 0;
+            } else if (args.length == 4 && args[1].equals("--adaptive") && (args[0].equals("compress") || args[0].equals("decompress"))) {
+                boolean compress = args[0].equals("compress");
+                try (InputStream in = args[2].equals("-") ? System.in : new BufferedInputStream(Files.newInputStream(Paths.get(args[2])));
+                     OutputStream out = args[3].equals("-") ? System.out : new BufferedOutputStream(Files.newOutputStream(Paths.get(args[3])))) {
+                    if (compress) {
+                        try (OutputStream adaptive = new AdaptiveHuffmanOutputStream(out)) {
+                            transferFlushing(in, adaptive);
+                        }
+                    } else {
+                        transferFlushing(new AdaptiveHuffmanInputStream(in), out);
+                    }
+                }
+                return 0;
+            } else if (args.length == 3 && args[0].equals("serve")) {
+                int port = parseArgument(args[1], 0, 65535);
+                if (port < 0) {
+                    System.err.println("Error: the port must be a number from 0 to 65535.");
+                    return printUsage();
+                }
+                HuffmanCodec codec = HuffmanCodec.of(Files.readString(Paths.get(args[2])));
+                try (HuffmanBatchService service = new HuffmanBatchService(codec);
+                     HuffmanBatchServer server = new HuffmanBatchServer(service, port)) {
+                    System.out.println("Serving encode/decode requests on 127.0.0.1:" + server.getPort());
+                    server.serve();
+                }
+                return 0;
+            } else if ((args.length == 3 || args.length == 5 && args[1].equals("--parallelism")) && args[0].equals("batch")) {
+                int parallelism = args.length == 5 ? parseArgument(args[2], 1, Integer.MAX_VALUE) : Runtime.getRuntime().availableProcessors();
+                if (parallelism < 0) {
+                    System.err.println("Error: the parallelism must be a positive number.");
+                    return printUsage();
+                }
+                String pattern = args[args.length - 2];
+                List<Path> inputs = BatchCompressor.findInputs(pattern);
+                if (inputs.isEmpty()) {
+                    System.err.println("Error: no files match " + pattern);
+                    return 1;
+                }
+                long start = System.nanoTime();
+                int failures;
+                try (BatchCompressor batch = new BatchCompressor(parallelism)) {
+                    failures = BatchCompressor.printReport(
+                            batch.compressAll(BatchCompressor.baseDirectory(pattern), inputs, Paths.get(args[args.length - 1])), System.out);
+                }
+                System.err.printf("Compressed %d files (%d failed) in %.1f ms%n", inputs.size(), failures, (System.nanoTime() - start) / 1e6);
+                return failures == 0 ? 0 : 1;
+            } else if (args.length >= 4 && args[0].equals("train")) {
+                int id = parseArgument(args[1], 0, Integer.MAX_VALUE);
+                if (id < 0) {
+                    System.err.println("Error: the codebook ID must be a non-negative number.");
+                    return printUsage();
+                }
+                StringBuilder corpus = new StringBuilder();
+                for (int i = 3; i < args.length; i++) {
+                    corpus.append(Files.readString(Paths.get(args[i])));
+                }
+                StaticCodebook codebook = StaticCodebook.train(id, corpus);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[2])))) {
+                    codebook.write(out);
+                }
+                System.out.printf("Trained codebook %d on %d characters: %d symbols, escape U+%04X%n", codebook.getId(),
+                        corpus.length(), codebook.getCodebook().getSymbolCount(), (int) codebook.getEscape());
+                return 0;
+            } else if (args.length == 3 && args[0].equals("decompress")) {
+                long start = System.nanoTime();
+                long size = compressor.decompress(Paths.get(args[1]), Paths.get(args[2]));
+                System.out.printf("Decompressed %d bytes in %.1f ms%n", size, (System.nanoTime() - start) / 1e6);
+                return 0;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+
+        return printUsage();
+    }
+
+    /**
+     * Prints the usage of the non-interactive commands.
+     *
+     * @return the exit code for invalid arguments
+     */
+    private static int printUsage() {
+        System.out.println("Usage: HuffmanCLI [compress [--mmap | --adaptive] <in> <out> | decompress [--adaptive] <in> <out> | serve <port> <codebook text file> | batch [--parallelism N] <dir|glob> <out dir> | train <id> <codebook file> <corpus files...>]");
+        return 2;
+    }
+
+    /**
+     * Parses a numeric command-line argument.
+     *
+     * @param value the argument
+     * @param min the smallest valid value, at least 0
+     * @param max the largest valid value
+     * @return the number, or -1 if the argument isn't a number from min to max
+     */
+    private static int parseArgument(String value, int min, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            return number >= min && number <= max ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Copies a stream, flushing the output whenever the input has nothing more available right away,
+     * so live input (e.g. a pipe) reaches the other side without waiting for a full buffer.
+     *
+     * @param in the input stream to copy from
+     * @param out the output stream to copy to
+     * @throws IOException if reading or writing fails
+     */
+    private static void transferFlushing(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[65536];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            if (in.available() == 0)
+                out.flush();
+        }
+    }
+
     /**
      * Method that reads from a file and extracts the text.
      *
@@ -112,7 +272,7 @@ public class HuffmanCLI {
      * @author Hyowon Arzil Bernabe
      */
     public static void huffmanCreation(HuffmanEncoder huffman, String text) {
-        Map<Character, Integer> frequencyTable = huffman.buildFrequencyTable(text);
+        Map<Character, Long> frequencyTable = huffman.buildFrequencyTable(text);
         Node root = huffman.buildHuffmanTree(frequencyTable);
 
         Map<Character, String> huffmanCode = new HashMap<>();
@@ -120,14 +280,14 @@ public class HuffmanCLI {
 
         System.out.println("\nEncoded Text: \n" + huffman.encode(text, huffmanCode));
 
-        HuffmanGUI gui = new HuffmanGUI(root, frequencyTable, huffmanCode);
-        gui.show();  // Show GUI with JTree and JTable
+        // Show GUI with JTree and JTable, created on the event dispatch thread
+        SwingUtilities.invokeLater(() -> new HuffmanGUI(root, frequencyTable, huffmanCode).show());
 
         displayTable(frequencyTable, huffmanCode);
 
-        displayHuffmanEfficiency(huffman, text, huffmanCode);
+        displayHuffmanEfficiency(CompressionAnalysis.of(frequencyTable, huffmanCode));
 
-        encodeOrDecode(huffman, huffmanCode, root);
+        encodeOrDecode(huffman, huffmanCode, new TableDecoder(huffmanCode));
     }
 
     /**
@@ -137,16 +297,13 @@ public class HuffmanCLI {
      * @author Hyowon Arzil Bernabe
      */
     public static void huffmanCustomFrequencyTableCreation(HuffmanEncoder huffman) {
-        Map<Character, Integer> frequencyTable = huffman.buildCustomFrequencyTable();
+        Map<Character, Long> frequencyTable = huffman.buildCustomFrequencyTable();
         Node root = huffman.buildHuffmanTree(frequencyTable);
 
         Map<Character, String> huffmanCode = new HashMap<>();
         huffman.buildHuffmanCode(root, "", huffmanCode);
 
-        HuffmanGUI gui = new HuffmanGUI(root, frequencyTable, huffmanCode);
-        SwingUtilities.invokeLater(() -> {
-            gui.show();
-        });
+        SwingUtilities.invokeLater(() -> new HuffmanGUI(root, frequencyTable, huffmanCode).show());
 
         displayTable(frequencyTable, huffmanCode);
 
@@ -156,17 +313,16 @@ public class HuffmanCLI {
     /**
      * Method to display the Huffman encoding efficiency for different encoding standards.
      *
-     * @param huffman the Huffman object for encoding/decoding
-     * @param text the input text used for efficiency calculation
-     * @param huffmanCode the map of characters to Huffman codes
+     * @param analysis the compression statistics of the text and its Huffman code
      * @author Hyowon Arzil Bernabe
      */
-    private static void displayHuffmanEfficiency(HuffmanEncoder huffman, String text, Map<Character, String> huffmanCode) {
+    private static void displayHuffmanEfficiency(CompressionAnalysis analysis) {
         System.out.println();
         System.out.println("Entire Huffman Efficiency");
-        System.out.println("ASCII " + huffman.calculateEfficiency(text, huffmanCode, 7));
-        System.out.println("EBCDIC " + huffman.calculateEfficiency(text, huffmanCode, 8));
-        System.out.println("Unicode " + huffman.calculateEfficiency(text, huffmanCode, 16));
+        System.out.printf("ASCII Efficiency: %.2f%%%n", analysis.getSavings(7));
+        System.out.printf("EBCDIC Efficiency: %.2f%%%n", analysis.getSavings(8));
+        System.out.printf("Unicode Efficiency: %.2f%%%n", analysis.getSavings(16));
+        System.out.println(analysis);
         System.out.println();
     }
 
@@ -177,11 +333,11 @@ public class HuffmanCLI {
      * @param huffmanCode map containing the Huffman codes for each character
      * @author Hyowon Arzil Bernabe
      */
-    private static void displayTable(Map<Character, Integer> frequencyTable, Map<Character, String> huffmanCode) {
+    private static void displayTable(Map<Character, Long> frequencyTable, Map<Character, String> huffmanCode) {
         System.out.println("\nHuffman Encoding Table:");
         System.out.printf("%-15s%-15s%-15s%n", "Character", "Frequency", "Huffman Code");
 
-        for (Map.Entry<Character, Integer> entry : frequencyTable.entrySet()) {
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
             String huffmanCodeString = huffmanCode.get(entry.getKey());
 
             System.out.printf("%-15s%-15d%-15s%n", entry.getKey(), entry.getValue(), huffmanCodeString);
@@ -197,6 +353,17 @@ public class HuffmanCLI {
      * @author Hyowon Arzil Bernabe
      */
     public static void encodeOrDecode(HuffmanEncoder huffman, Map<Character, String> huffmanCode, Node root) {
+        encodeOrDecode(huffman, huffmanCode, new TableDecoder(huffmanCode));
+    }
+
+    /**
+     * Method that gives the user a menu to ask if they want to encode or decode a message, using a prebuilt decoder.
+     *
+     * @param huffman the Huffman object for encoding/decoding
+     * @param huffmanCode the map of characters to Huffman codes
+     * @param decoder the table decoder built from the Huffman codes, used for decoding messages
+     */
+    public static void encodeOrDecode(HuffmanEncoder huffman, Map<Character, String> huffmanCode, TableDecoder decoder) {
         Scanner scanner = new Scanner(System.in);
         String text;
 
@@ -240,7 +407,7 @@ public class HuffmanCLI {
                 } else if (choice == 2) { // 2. Decode a message.
                     System.out.print("\nEnter the text to decode: ");
                     text = scanner.nextLine();
-                    System.out.println("\nDecoded Text: \n" + huffman.decode(text, root) + "\n");
+                    System.out.println("\nDecoded Text: \n" + huffman.decode(text, decoder) + "\n");
                 } else if (choice == 3) { // 3. Back to main Menu.
                     break;
                 } else if (choice == 4) { // 4. Exit.
@@ -0,0 +1,370 @@
+package midtermlabproject3;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical Huffman codebook described only by the code length of each symbol.
+ *
+ * Symbols are ordered by code length and then by character value, and codes are assigned
+ * consecutively in that order. Because of that, the codebook can be stored as (symbol, length) pairs
+ * and decoded with first-code/offset arrays without the original {@link Node} tree.
+ */
+public class HuffmanCodebook {
+    /** Longest code length supported by the canonical representation. */
+    public static final int MAX_CODE_LENGTH = 63;
+
+    private final char[] symbols; // Canonical order: by code length, then by character
+    private final int[] lengths;  // Code length of each symbol in canonical order
+    private final long[] codes;   // Canonical code of each symbol in canonical order
+    private final int maxLength;
+
+    // Decoding tables indexed by code length
+    private final long[] firstCode;
+    private final int[] firstIndex;
+    private final int[] lengthCount;
+
+    private HuffmanCodebook(List<SymbolLength> entries) {
+        entries.sort((a, b) -> a.length != b.length ? Integer.compare(a.length, b.length) : Character.compare(a.symbol, b.symbol));
+
+        int n = entries.size();
+        symbols = new char[n];
+        lengths = new int[n];
+        codes = new long[n];
+
+        int longest = 0;
+        for (int i = 0; i < n; i++) {
+            symbols[i] = entries.get(i).symbol;
+            lengths[i] = entries.get(i).length;
+            longest = Math.max(longest, lengths[i]);
+        }
+        maxLength = longest;
+
+        firstCode = new long[maxLength + 2];
+        firstIndex = new int[maxLength + 2];
+        lengthCount = new int[maxLength + 2];
+        for (int length : lengths) {
+            lengthCount[length]++;
+        }
+
+        // Assign codes in canonical order, shifting left whenever the code length grows
+        long code = 0;
+        int index = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code <<= 1;
+            firstCode[length] = code;
+            firstIndex[length] = index + lengthCount[0];
+            for (int i = 0; i < lengthCount[length]; i++) {
+                codes[lengthCount[0] + index] = code++;
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Creates a canonical codebook using the code lengths (leaf depths) of a Huffman tree.
+     *
+     * @param root the root node of the Huffman tree
+     * @return the canonical codebook
+     * @throws IllegalArgumentException if the tree is deeper than {@link #MAX_CODE_LENGTH}
+     */
+    public static HuffmanCodebook fromTree(Node root) {
+        List<SymbolLength> entries = new ArrayList<>();
+        if (root != null)
+            collectLengths(root, 0, entries);
+        return create(entries);
+    }
+
+    /**
+     * Creates a canonical codebook using the code lengths (leaf depths) of a flat Huffman tree.
+     *
+     * @param tree the Huffman tree
+     * @return the canonical codebook
+     * @throws IllegalArgumentException if the tree is deeper than {@link #MAX_CODE_LENGTH}
+     */
+    public static HuffmanCodebook fromTree(FlatHuffmanTree tree) {
+        List<SymbolLength> entries = new ArrayList<>(tree.getLeafCount());
+        int[] depths = new int[tree.getNodeCount()];
+        for (int node = tree.getRoot(); node >= tree.getLeafCount(); node--) {
+            depths[tree.getLeft(node)] = depths[node] + 1;
+            depths[tree.getRight(node)] = depths[node] + 1;
+        }
+        for (int leaf = 0; leaf < tree.getLeafCount(); leaf++) {
+            entries.add(new SymbolLength((char) tree.getSymbol(leaf), depths[leaf]));
+        }
+        return create(entries);
+    }
+
+    /**
+     * Creates a canonical codebook from explicit code lengths.
+     *
+     * @param codeLengths map of characters to their code lengths
+     * @return the canonical codebook
+     * @throws IllegalArgumentException if the lengths are out of range or don't form a valid prefix code
+     */
+    public static HuffmanCodebook fromCodeLengths(Map<Character, Integer> codeLengths) {
+        List<SymbolLength> entries = new ArrayList<>();
+        for (Map.Entry<Character, Integer> entry : codeLengths.entrySet()) {
+            entries.add(new SymbolLength(entry.getKey(), entry.getValue()));
+        }
+        return create(entries);
+    }
+
+    /**
+     * Reads a codebook header written by {@link #write(OutputStream)}.
+     *
+     * @param in the input stream to read from
+     * @return the canonical codebook
+     * @throws IOException if reading fails or the header is malformed
+     */
+    public static HuffmanCodebook read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int count = data.readUnsignedShort() + 1;
+        List<SymbolLength> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new SymbolLength(data.readChar(), data.readUnsignedByte()));
+        }
+
+        try {
+            return create(entries);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid codebook header: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the codebook as a compact header: the symbol count followed by a (symbol, length) pair per symbol.
+     * This takes 2 + 3 * n bytes for n symbols.
+     *
+     * @param out the output stream to write to
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        if (symbols.length == 0)
+            throw new IllegalStateException("An empty codebook can't be written.");
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeShort(symbols.length - 1);
+        for (int i = 0; i < symbols.length; i++) {
+            data.writeChar(symbols[i]);
+            data.writeByte(lengths[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * Gets the size in bytes of the header written by {@link #write(OutputStream)}.
+     *
+     * @return the header size in bytes
+     */
+    public int getHeaderSize() {
+        return 2 + 3 * symbols.length;
+    }
+
+    /**
+     * Gets the exact number of bits needed to encode characters with the given frequencies.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @return the encoded size in bits, not counting the header
+     * @throws IllegalArgumentException if a character has no code in this codebook
+     */
+    public long getEncodedBits(Map<Character, Long> frequencyTable) {
+        Map<Character, Integer> codeLengths = new HashMap<>();
+        buildCodeLengths(codeLengths);
+
+        long bits = 0;
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            Integer length = codeLengths.get(entry.getKey());
+            if (length == null)
+                throw new IllegalArgumentException("No code for character " + (int) entry.getKey() + ".");
+            bits += entry.getValue() * length;
+        }
+        return bits;
+    }
+
+    /**
+     * Fills the given map with the canonical code of each character as a string of '0' and '1' characters.
+     *
+     * @param huffmanCode map to store the canonical codes for each character
+     */
+    public void buildCodeMap(Map<Character, String> huffmanCode) {
+        for (int i = 0; i < symbols.length; i++) {
+            huffmanCode.put(symbols[i], toBitString(codes[i], lengths[i]));
+        }
+    }
+
+    /**
+     * Fills the given map with the code length of each character.
+     *
+     * @param codeLengths map to store the code length of each character
+     */
+    public void buildCodeLengths(Map<Character, Integer> codeLengths) {
+        for (int i = 0; i < symbols.length; i++) {
+            codeLengths.put(symbols[i], lengths[i]);
+        }
+    }
+
+    /**
+     * Builds a {@link Node} tree whose paths are the canonical codes, e.g. for display in {@link HuffmanGUI}.
+     * Leaves get the frequencies from the given table and internal nodes the sum of their children.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @return the root node of the tree, or null if the codebook is empty
+     */
+    public Node toTree(Map<Character, Long> frequencyTable) {
+        if (symbols.length == 0)
+            return null;
+
+        Node root = new Node(0, null, null);
+        for (int i = 0; i < symbols.length; i++) {
+            Node leaf = new Node(symbols[i], frequencyTable.getOrDefault(symbols[i], 0L));
+            if (lengths[i] == 0)
+                return leaf; // A lone symbol is the whole tree
+
+            Node node = root;
+            for (int bit = lengths[i] - 1; bit > 0; bit--) {
+                boolean right = ((codes[i] >>> bit) & 1) == 1;
+                Node child = right ? node.getRightNode() : node.getLeftNode();
+                if (child == null) {
+                    child = new Node(0, null, null);
+                    if (right) node.setRightNode(child); else node.setLeftNode(child);
+                }
+                node = child;
+            }
+            if ((codes[i] & 1) == 1) node.setRightNode(leaf); else node.setLeftNode(leaf);
+        }
+        sumFrequencies(root);
+        return root;
+    }
+
+    /**
+     * Decodes the next symbol using the first-code/offset arrays, reading one bit per code length.
+     *
+     * @param in the bit reader to read from
+     * @return the decoded character
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public char decodeSymbol(BitReader in) throws InvalidEncodedTextException {
+        if (lengthCount[0] > 0)
+            return symbols[0]; // A lone symbol has an empty code
+
+        long code = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code = (code << 1) | in.readBit();
+            long index = code - firstCode[length];
+            if (index < lengthCount[length])
+                return symbols[firstIndex[length] + (int) index];
+        }
+        throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+    }
+
+    /**
+     * Gets the number of symbols in the codebook.
+     *
+     * @return the number of symbols
+     */
+    public int getSymbolCount() {
+        return symbols.length;
+    }
+
+    /**
+     * Gets the symbol at the given canonical position.
+     *
+     * @param index the canonical position, from 0 to the symbol count
+     * @return the symbol
+     */
+    public char getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * Gets the code length of the symbol at the given canonical position.
+     *
+     * @param index the canonical position, from 0 to the symbol count
+     * @return the code length in bits
+     */
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Gets the canonical code of the symbol at the given canonical position.
+     *
+     * @param index the canonical position, from 0 to the symbol count
+     * @return the code, right-aligned in {@link #getLength(int)} bits
+     */
+    public long getCode(int index) {
+        return codes[index];
+    }
+
+    /**
+     * Gets the longest code length in the codebook.
+     *
+     * @return the maximum code length in bits
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    private static HuffmanCodebook create(List<SymbolLength> entries) {
+        if (entries.size() > 1 << 16)
+            throw new IllegalArgumentException("Too many symbols.");
+
+        // The Kraft sum of a complete prefix code is exactly 1; a lone symbol may have length 0
+        double kraft = 0;
+        for (SymbolLength entry : entries) {
+            if (entry.length > MAX_CODE_LENGTH)
+                throw new IllegalArgumentException("Code length " + entry.length + " exceeds the maximum of " + MAX_CODE_LENGTH + ".");
+            if (entry.length < 0 || (entry.length == 0 && entries.size() > 1))
+                throw new IllegalArgumentException("Invalid code length " + entry.length + ".");
+
+            kraft += Math.scalb(1.0, -entry.length);
+        }
+        if (kraft > 1.0)
+            throw new IllegalArgumentException("Code lengths don't form a prefix code.");
+
+        return new HuffmanCodebook(entries);
+    }
+
+    private static void collectLengths(Node node, int depth, List<SymbolLength> entries) {
+        if (node.isLeaf()) {
+            entries.add(new SymbolLength(node.getData(), depth));
+            return;
+        }
+        if (node.getLeftNode() != null)
+            collectLengths(node.getLeftNode(), depth + 1, entries);
+        if (node.getRightNode() != null)
+            collectLengths(node.getRightNode(), depth + 1, entries);
+    }
+
+    private static long sumFrequencies(Node node) {
+        if (node == null)
+            return 0;
+        if (node.isLeaf())
+            return node.getFrequency();
+
+        node.setFrequency(sumFrequencies(node.getLeftNode()) + sumFrequencies(node.getRightNode()));
+        return node.getFrequency();
+    }
+
+    private static String toBitString(long code, int length) {
+        StringBuilder bits = new StringBuilder(length);
+        for (int i = length - 1; i >= 0; i--) {
+            bits.append(((code >>> i) & 1) == 0 ? '0' : '1');
+        }
+        return bits.toString();
+    }
+
+    /**
+     * Pair of a symbol and its code length.
+     */
+    private record SymbolLength(char symbol, int length) {
+    }
+}
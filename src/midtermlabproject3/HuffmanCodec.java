@@ -0,0 +1,397 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, thread-safe Huffman codec built once from a canonical codebook.
+ *
+ * Unlike the {@link HuffmanEncoder} methods, which pass mutable {@code HashMap}s and {@link Node} trees
+ * around, a codec owns its code map, encode table and decode table and never changes them after
+ * construction, so one instance can be shared by any number of threads.
+ */
+public final class HuffmanCodec {
+    /** Number of sub-streams written by {@link #encodeInterleaved(CharSequence)}. */
+    public static final int STREAMS = 4;
+
+    private static final int JUMP_TABLE_SIZE = 4 * (STREAMS - 1);
+    private static final int MIN_WINDOW_BITS = 57;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final HuffmanCodebook codebook;
+    private final Map<Character, String> huffmanCode;
+    private final CodeTable codeTable;
+    private final TableDecoder decoder;
+    private final int singleSymbol; // The only character when the codebook has one symbol, otherwise -1
+
+    private HuffmanCodec(HuffmanCodebook codebook) {
+        if (codebook.getSymbolCount() == 0)
+            throw new IllegalArgumentException("The codebook is empty.");
+
+        Map<Character, String> codes = new HashMap<>();
+        codebook.buildCodeMap(codes);
+        this.codebook = codebook;
+        this.huffmanCode = Collections.unmodifiableMap(codes);
+        this.codeTable = new CodeTable(codes);
+        this.decoder = new TableDecoder(codebook);
+        this.singleSymbol = codebook.getSymbolCount() == 1 ? codebook.getSymbol(0) : -1;
+    }
+
+    /**
+     * Creates a codec from a canonical codebook.
+     *
+     * @param codebook the canonical codebook
+     * @return the codec
+     * @throws IllegalArgumentException if the codebook is empty
+     */
+    public static HuffmanCodec fromCodebook(HuffmanCodebook codebook) {
+        return new HuffmanCodec(codebook);
+    }
+
+    /**
+     * Creates a codec from a frequency table.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @return the codec
+     * @throws IllegalArgumentException if the frequency table is empty
+     */
+    public static HuffmanCodec fromFrequencyTable(Map<Character, Long> frequencyTable) {
+        return new HuffmanCodec(HuffmanCodebook.fromTree(FlatHuffmanTree.of(frequencyTable)));
+    }
+
+    /**
+     * Creates a codec for the characters of a text.
+     *
+     * @param text the text the codec will encode
+     * @return the codec
+     * @throws IllegalArgumentException if the text is empty
+     */
+    public static HuffmanCodec of(CharSequence text) {
+        return new HuffmanCodec(HuffmanCodebook.fromTree(FlatHuffmanTree.of(new FrequencyCounter().count(text))));
+    }
+
+    /**
+     * Encodes text into packed bits.
+     *
+     * @param text the text to encode
+     * @return the packed bits together with their exact length
+     * @throws InvalidDecodedTextException if a character has no code
+     */
+    public EncodedBits encode(CharSequence text) throws InvalidDecodedTextException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 2 + 16);
+        BitWriter out = new BitWriter(bytes);
+        long bitLength = encode(text, out);
+        out.flush();
+        return new EncodedBits(bytes.toByteArray(), bitLength);
+    }
+
+    /**
+     * Encodes text into a bit writer owned by the caller.
+     *
+     * @param text the text to encode
+     * @param out the bit writer to write to
+     * @return the number of bits written
+     * @throws InvalidDecodedTextException if a character has no code
+     */
+    public long encode(CharSequence text, BitWriter out) throws InvalidDecodedTextException {
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        long start = out.getBitsWritten();
+        for (int i = 0; i < text.length(); i++) {
+            codeTable.write(out, text.charAt(i));
+        }
+        long bits = out.getBitsWritten() - start;
+        if (instrumented)
+            HuffmanInstrumentation.encoded(text.length(), bits, System.nanoTime() - startTime);
+        return bits;
+    }
+
+    /**
+     * Creates an encoder that writes into caller-owned byte buffers without allocating per call.
+     *
+     * @return a new encoder using the codes of this codec
+     */
+    public HuffmanBufferEncoder newEncoder() {
+        return new HuffmanBufferEncoder(codeTable);
+    }
+
+    /**
+     * Creates a decoder that writes into caller-owned char buffers without allocating per call.
+     *
+     * @return a new decoder using the codes of this codec
+     * @throws IllegalArgumentException if a code is longer than 57 bits
+     */
+    public HuffmanBufferDecoder newDecoder() {
+        return new HuffmanBufferDecoder(decoder, singleSymbol);
+    }
+
+    /**
+     * Decodes packed bits. A codebook with a single symbol has zero-length codes, so its texts can only be
+     * decoded with {@link #decode(EncodedBits, int)}.
+     *
+     * @param bits the packed bits
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(EncodedBits bits) throws InvalidEncodedTextException {
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        String text;
+        try {
+            text = decoder.decode(bits);
+        } catch (InvalidEncodedTextException e) {
+            if (instrumented)
+                HuffmanInstrumentation.decodeFailed(e);
+            throw e;
+        }
+        if (instrumented)
+            HuffmanInstrumentation.decoded(bits.getBitLength(), text.length(), System.nanoTime() - startTime);
+        return text;
+    }
+
+    /**
+     * Decodes the given number of characters from packed bits.
+     *
+     * @param bits the packed bits
+     * @param length the number of characters to decode
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(EncodedBits bits, int length) throws InvalidEncodedTextException {
+        if (singleSymbol >= 0)
+            return String.valueOf((char) singleSymbol).repeat(length);
+
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        BitReader in = bits.reader();
+        char[] text = new char[length];
+        try {
+            for (int i = 0; i < length; i++) {
+                text[i] = decoder.decodeSymbol(in);
+            }
+        } catch (InvalidEncodedTextException e) {
+            if (instrumented)
+                HuffmanInstrumentation.decodeFailed(e);
+            throw e;
+        }
+        if (instrumented)
+            HuffmanInstrumentation.decoded(in.getBitsRead(), length, System.nanoTime() - startTime);
+        return new String(text);
+    }
+
+    /**
+     * Encodes text as {@value #STREAMS} interleaved sub-streams with the same codes.
+     *
+     * The text is split into {@value #STREAMS} contiguous segments of {@code ceil(length / 4)} characters
+     * (the last may be shorter), and each segment is encoded as its own byte-aligned bit stream. A jump table
+     * of three big-endian ints, the byte sizes of the first three streams, comes first, so a decoder can
+     * open all streams at once and advance them in one loop without waiting on each other's code lengths.
+     *
+     * @param text the text to encode
+     * @return the jump table followed by the four streams
+     * @throws InvalidDecodedTextException if a character has no code
+     */
+    public byte[] encodeInterleaved(CharSequence text) throws InvalidDecodedTextException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 2 + 16);
+        BitWriter out = new BitWriter(bytes);
+        int segment = (text.length() + STREAMS - 1) / STREAMS;
+        int[] ends = new int[STREAMS];
+        for (int stream = 0; stream < STREAMS; stream++) {
+            int from = Math.min(text.length(), stream * segment);
+            int to = Math.min(text.length(), from + segment);
+            encode(text.subSequence(from, to), out);
+            out.flush();
+            ends[stream] = bytes.size();
+        }
+
+        byte[] streams = bytes.toByteArray();
+        ByteBuffer data = ByteBuffer.allocate(JUMP_TABLE_SIZE + streams.length);
+        for (int stream = 0; stream < STREAMS - 1; stream++) {
+            data.putInt(ends[stream] - (stream == 0 ? 0 : ends[stream - 1]));
+        }
+        return data.put(streams).array();
+    }
+
+    /**
+     * Decodes text written by {@link #encodeInterleaved(CharSequence)}, advancing the four sub-streams
+     * round-robin so their decoding steps are independent of each other.
+     *
+     * @param data the jump table followed by the four streams
+     * @param length the number of characters to decode
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the jump table is invalid or the bits don't match any code
+     */
+    public String decodeInterleaved(byte[] data, int length) throws InvalidEncodedTextException {
+        if (singleSymbol >= 0)
+            return String.valueOf((char) singleSymbol).repeat(length);
+        if (data.length < JUMP_TABLE_SIZE)
+            throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+
+        // Bit positions of the streams from the jump table
+        ByteBuffer jumpTable = ByteBuffer.wrap(data);
+        long[] starts = new long[STREAMS + 1];
+        starts[0] = 8L * JUMP_TABLE_SIZE;
+        for (int stream = 0; stream < STREAMS; stream++) {
+            long size = stream < STREAMS - 1 ? 8L * jumpTable.getInt() : 8L * data.length - starts[stream];
+            if (size < 0 || size > 8L * data.length - starts[stream])
+                throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+            starts[stream + 1] = starts[stream] + size;
+        }
+
+        char[] text = new char[length];
+        int segment = (length + STREAMS - 1) / STREAMS;
+        int last = Math.max(0, length - (STREAMS - 1) * segment); // Length of the shortest (last) segment
+        if (decoder.getMaxCodeLength() > MIN_WINDOW_BITS) {
+            // Codes too long for a single window; decode the streams one by one
+            for (int stream = 0; stream < STREAMS; stream++) {
+                int from = (int) (starts[stream] / 8);
+                BitReader in = new BitReader(ByteBuffer.wrap(data, from, (int) (starts[stream + 1] / 8) - from));
+                for (int p = Math.min(length, stream * segment); p < Math.min(length, (stream + 1) * segment); p++) {
+                    text[p] = decoder.decodeSymbol(in);
+                }
+            }
+            return new String(text);
+        }
+
+        // Each stream is just a bit position and each step loads a fresh window, so the four lookups
+        // don't depend on each other and can overlap in the pipeline
+        long s0 = starts[0], s1 = starts[1], s2 = starts[2], s3 = starts[3];
+        int p0 = 0, p1 = segment, p2 = 2 * segment, p3 = 3 * segment;
+        for (int i = 0; i < last; i++) {
+            int e0 = decoder.decodeWindow(window(data, s0));
+            int e1 = decoder.decodeWindow(window(data, s1));
+            int e2 = decoder.decodeWindow(window(data, s2));
+            int e3 = decoder.decodeWindow(window(data, s3));
+            text[p0++] = (char) e0;
+            text[p1++] = (char) e1;
+            text[p2++] = (char) e2;
+            text[p3++] = (char) e3;
+            s0 += e0 >>> 16;
+            s1 += e1 >>> 16;
+            s2 += e2 >>> 16;
+            s3 += e3 >>> 16;
+        }
+        long[] positions = {s0, s1, s2, s3};
+
+        // The first three segments may be longer than the last one, and short texts leave some segments empty
+        for (int stream = 0; stream < STREAMS; stream++) {
+            int to = Math.min(length, (stream + 1) * segment);
+            long position = positions[stream];
+            for (int p = Math.min(length, stream * segment + last); p < to; p++) {
+                int entry = decoder.decodeWindow(window(data, position));
+                text[p] = (char) entry;
+                position += entry >>> 16;
+            }
+            if (position > starts[stream + 1])
+                throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+        }
+        return new String(text);
+    }
+
+    /**
+     * Loads 64 bits starting at a bit position, of which at least {@value #MIN_WINDOW_BITS} are valid.
+     * Bytes past the end of the array read as zeros.
+     */
+    private static long window(byte[] data, long bitPosition) {
+        int index = (int) (bitPosition >>> 3);
+        long bits;
+        if (index + 8 <= data.length) {
+            bits = (long) LONG_VIEW.get(data, index);
+        } else {
+            bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = bits << 8 | (index + i < data.length ? data[index + i] & 0xFF : 0);
+            }
+        }
+        return bits << (bitPosition & 7);
+    }
+
+    /**
+     * Builds a checkpoint index for random access into the encoding of a text.
+     *
+     * @param text the text that is or will be encoded with this codec
+     * @param interval the number of characters between checkpoints
+     * @return the index
+     * @throws InvalidDecodedTextException if a character has no code
+     */
+    public SeekIndex buildSeekIndex(CharSequence text, int interval) throws InvalidDecodedTextException {
+        return SeekIndex.build(text, codeTable, interval);
+    }
+
+    /**
+     * Decodes the characters from {@code from} (inclusive) to {@code to} (exclusive) of an encoded text.
+     * Decoding starts at the checkpoint before {@code from}, so it reads at most
+     * {@code index.getInterval() - 1} characters that aren't returned.
+     *
+     * @param bits the packed bits of the whole text
+     * @param index the checkpoint index of the text
+     * @param from the index of the first character to decode
+     * @param to the index after the last character to decode
+     * @return the decoded slice
+     * @throws IndexOutOfBoundsException if the range is outside the text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decodeRange(EncodedBits bits, SeekIndex index, long from, long to) throws InvalidEncodedTextException {
+        if (from < 0 || to > index.getSymbolCount() || from > to || to - from > Integer.MAX_VALUE)
+            throw new IndexOutOfBoundsException("Range " + from + ".." + to + " is outside 0.." + index.getSymbolCount() + ".");
+        if (singleSymbol >= 0)
+            return String.valueOf((char) singleSymbol).repeat((int) (to - from));
+        if (from == to)
+            return "";
+
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        int checkpoint = index.checkpointBefore(from);
+        BitReader in = bits.reader(index.getOffset(checkpoint));
+        char[] text = new char[(int) (to - from)];
+        try {
+            for (long skip = from - (long) checkpoint * index.getInterval(); skip > 0; skip--) {
+                decoder.decodeSymbol(in);
+            }
+            for (int i = 0; i < text.length; i++) {
+                text[i] = decoder.decodeSymbol(in);
+            }
+        } catch (InvalidEncodedTextException e) {
+            if (instrumented)
+                HuffmanInstrumentation.decodeFailed(e);
+            throw e;
+        }
+        if (instrumented)
+            HuffmanInstrumentation.decoded(in.getBitsRead(), text.length, System.nanoTime() - startTime);
+        return new String(text);
+    }
+
+    /**
+     * Checks whether the given character has a code.
+     *
+     * @param character the character to check
+     * @return true if the character can be encoded, false otherwise
+     */
+    public boolean contains(char character) {
+        return codeTable.contains(character);
+    }
+
+    /**
+     * Gets the canonical codebook of this codec.
+     *
+     * @return the codebook
+     */
+    public HuffmanCodebook getCodebook() {
+        return codebook;
+    }
+
+    /**
+     * Gets the codes of this codec.
+     *
+     * @return unmodifiable map of characters to their Huffman codes
+     */
+    public Map<Character, String> getHuffmanCode() {
+        return huffmanCode;
+    }
+}
@@ -1,5 +1,6 @@
 package midtermlabproject3;
 
+import java.io.ByteArrayOutputStream;
 import java.util.*;
 
 /**
@@ -7,6 +8,7 @@ import java.util.*;
  * It includes functionality for building frequency tables, generating Huffman codes, and calculating encoding efficiency.
  * */
 public class HuffmanEncoder {
+    private final FrequencyCounter frequencyCounter = new FrequencyCounter();
 
     /**
      * Method to build the table with frequencies from the given text.
@@ -15,10 +17,21 @@ public class HuffmanEncoder {
      * @return a map containing characters as keys and their frequencies as values
      * @author Audrey Matulay
      * */
-    public Map<Character, Integer> buildFrequencyTable(String text) {
-        Map<Character, Integer> frequencyTable = new HashMap<>();
-        for (char c : text.toCharArray()) {
-            frequencyTable.put(c, frequencyTable.getOrDefault(c, 0) + 1);
+    public Map<Character, Long> buildFrequencyTable(String text) {
+        return buildFrequencyTable(frequencyCounter.count(text));
+    }
+
+    /**
+     * Method to build the table with frequencies from a histogram, such as one made by {@link FrequencyCounter}.
+     *
+     * @param histogram the frequency of each character, indexed by character value
+     * @return a map containing the characters with a non-zero frequency as keys and their frequencies as values
+     * */
+    public Map<Character, Long> buildFrequencyTable(long[] histogram) {
+        Map<Character, Long> frequencyTable = new HashMap<>();
+        for (int c = 0; c < histogram.length; c++) {
+            if (histogram[c] > 0)
+                frequencyTable.put((char) c, histogram[c]);
         }
         return frequencyTable;
     }
@@ -29,9 +42,9 @@ public class HuffmanEncoder {
      * @return a map containing characters as keys and their manually inputted frequencies as values
      * @author Hyowon Arzil Bernabe
      * */
-    public Map<Character, Integer> buildCustomFrequencyTable() {
+    public Map<Character, Long> buildCustomFrequencyTable() {
         Scanner scanner = new Scanner(System.in);
-        Map<Character, Integer> frequencyTable = new HashMap<>();
+        Map<Character, Long> frequencyTable = new HashMap<>();
 
         boolean continueAdding = true;
 
@@ -42,10 +55,10 @@ public class HuffmanEncoder {
 
             // Prompt for frequency
             System.out.print("What frequency: ");
-            int frequency = scanner.nextInt();
+            long frequency = scanner.nextLong();
 
             // Add or update the frequency in the map
-            frequencyTable.put(character, frequencyTable.getOrDefault(character, 0) + frequency);
+            frequencyTable.put(character, frequencyTable.getOrDefault(character, 0L) + frequency);
 
             // Ask if the user wants to add more data
             System.out.print("Do you want to add more? (y/n): ");
@@ -62,26 +75,21 @@ public class HuffmanEncoder {
 
     /**
      * Method to build the Huffman Tree using the frequency table.
+     * The tree is built as a {@link FlatHuffmanTree} and returned as a {@link Node} view.
      *
      * @param frequencyTable map of characters and their respective frequencies
      * @return the root node of the Huffman tree
      * @author Jim Hendrix Bag-eo
      * */
-    public Node buildHuffmanTree(Map<Character, Integer> frequencyTable) {
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(Node::getFrequency));
-
-        for (Map.Entry<Character, Integer> entry : frequencyTable.entrySet())
-            queue.add(new Node(entry.getKey(), entry.getValue()));
-
-        while (queue.size() > 1) {
-            Node left = queue.poll();
-            Node right = queue.poll();
-            assert right != null;
-            Node parent = new Node(left.getFrequency() + right.getFrequency(), left, right);
-            queue.add(parent);
-        }
+    public Node buildHuffmanTree(Map<Character, Long> frequencyTable) {
+        if (!HuffmanInstrumentation.isActive())
+            return FlatHuffmanTree.of(frequencyTable).toNode();
 
-        return queue.poll();
+        long start = System.nanoTime();
+        FlatHuffmanTree tree = FlatHuffmanTree.of(frequencyTable);
+        Node root = tree.toNode();
+        HuffmanInstrumentation.treeBuilt(tree, frequencyTable, System.nanoTime() - start);
+        return root;
     }
 
     /**
@@ -107,8 +115,42 @@ public class HuffmanEncoder {
         }
     }
 
+    /**
+     * Method that makes canonical Huffman codes from the tree. The code lengths are taken from the tree,
+     * but the codes themselves are assigned in order of code length and then character, so they can be
+     * stored and rebuilt from a {@link HuffmanCodebook} header without the tree.
+     *
+     * @param root the root node of the Huffman tree
+     * @param huffmanCode map to store the generated canonical codes for each character
+     * @return the canonical codebook, which can be written as a compact header
+     * */
+    public HuffmanCodebook buildCanonicalHuffmanCode(Node root, Map<Character, String> huffmanCode) {
+        HuffmanCodebook codebook = HuffmanCodebook.fromTree(root);
+        codebook.buildCodeMap(huffmanCode);
+        return codebook;
+    }
+
+    /**
+     * Method that makes canonical Huffman codes whose lengths don't exceed the given maximum.
+     * The code lengths are optimal under that limit (package-merge), so the codes are only longer on average
+     * than unconstrained Huffman codes when the tree would otherwise be deeper than {@code maxLength}.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @param maxLength the maximum code length in bits, e.g. 11, 15 or 24
+     * @param huffmanCode map to store the generated canonical codes for each character
+     * @return the canonical codebook, which can be written as a compact header
+     * @throws IllegalArgumentException if the characters don't fit in codes of at most {@code maxLength} bits
+     * */
+    public HuffmanCodebook buildLengthLimitedHuffmanCode(Map<Character, Long> frequencyTable, int maxLength, Map<Character, String> huffmanCode) {
+        HuffmanCodebook codebook = HuffmanCodebook.fromCodeLengths(LengthLimitedCode.codeLengths(frequencyTable, maxLength));
+        codebook.buildCodeMap(huffmanCode);
+        return codebook;
+    }
+
     /**
      * Method that calculates the efficiency of the Huffman Code compared to the original size.
+     * This counts the characters of the text again; use {@link CompressionAnalysis} when the frequency
+     * table is already known or several statistics are needed.
      *
      * @param text the input text to analyze
      * @param encodingBits the number of bits used for fixed-length encoding (e.g., 7 for ASCII, 8 for EBCDIC)
@@ -116,25 +158,15 @@ public class HuffmanEncoder {
      * @author Joeffrey Edrian Carani
      * */
     public String calculateEfficiency(String text, Map<Character, String> huffmanCode, int encodingBits) {
-        int originalSize = text.length() * encodingBits;
-        int compressedSize = 0;
-
-        Map<Character, Integer> frequencyTable = buildFrequencyTable(text);
-
-        for (Map.Entry<Character, String> e : huffmanCode.entrySet()) { // Iterates through map and getting value pair's key and value
-            char character = e.getKey();
-            String code = e.getValue();
-
-            compressedSize += frequencyTable.get(character) * code.length();
-        }
-
-        double efficiency = (double)(originalSize - compressedSize) / originalSize * 100; // Calculates for the percentage of storage savings
+        double efficiency = CompressionAnalysis.of(buildFrequencyTable(text), huffmanCode).getSavings(encodingBits);
 
         return String.format("Efficiency: %.2f%%", efficiency);
     }
 
     /**
      * Method to encode a given text using the generated Huffman Code.
+     * The result is rendered as a string of '0' and '1' characters for display; use
+     * {@link #encodeToBits(String, Map)} for the bit-packed form.
      *
      * @param text the input text to encode
      * @return the Huffman-encoded string
@@ -142,16 +174,47 @@ public class HuffmanEncoder {
      * @author Hyowon Arzil Bernabe
      * */
     public String encode(String text, Map<Character, String> huffmanCode) throws InvalidEncodedTextException {
-        StringBuilder encodedString = new StringBuilder();
-        for (char data : text.toCharArray()) {
+        return encodeToBits(text, huffmanCode).toString();
+    }
 
-            String code = huffmanCode.get(data);
-            if (code == null)
-                throw new InvalidDecodedTextException("Invalid Action. Some character/s in the text doesn't match any of the provided character codes.");
+    /**
+     * Method to encode a given text into bit-packed bytes using the generated Huffman Code.
+     *
+     * @param text the input text to encode
+     * @param huffmanCode map of characters to their Huffman codes
+     * @return the packed bits together with their exact length
+     * @throws InvalidDecodedTextException if the text contains characters not found in the Huffman code
+     * */
+    public EncodedBits encodeToBits(String text, Map<Character, String> huffmanCode) throws InvalidDecodedTextException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 2 + 16);
+        BitWriter out = new BitWriter(bytes);
+        encode(text, new CodeTable(huffmanCode), out);
+        long bitLength = out.getBitsWritten();
+        out.flush();
+        return new EncodedBits(bytes.toByteArray(), bitLength);
+    }
 
-            encodedString.append(huffmanCode.get(data));
+    /**
+     * Method to encode a given text into a bit writer using a flat code table.
+     * The writer is not flushed, so several texts can be written back to back.
+     *
+     * @param text the input text to encode
+     * @param codeTable the code table to encode with
+     * @param out the bit writer that receives the codes
+     * @return the number of bits written
+     * @throws InvalidDecodedTextException if the text contains characters not found in the code table
+     * */
+    public long encode(CharSequence text, CodeTable codeTable, BitWriter out) throws InvalidDecodedTextException {
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        long start = out.getBitsWritten();
+        for (int i = 0; i < text.length(); i++) {
+            codeTable.write(out, text.charAt(i));
         }
-        return encodedString.toString();
+        long bits = out.getBitsWritten() - start;
+        if (instrumented)
+            HuffmanInstrumentation.encoded(text.length(), bits, System.nanoTime() - startTime);
+        return bits;
     }
 
     /**
@@ -164,22 +227,100 @@ public class HuffmanEncoder {
      * @author Aaron Miguel Cardenas
      * */
     public String decode(String text, Node root) throws InvalidEncodedTextException {
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
         StringBuilder decodedString = new StringBuilder();
-        Node currentNode = root;
-        for (char bit : text.toCharArray()) {
-            if (bit != '0' && bit != '1')
-                throw new InvalidEncodedTextException("Invalid Action. The decoded text contains invalid code/s.");
+        try {
+            Node currentNode = root;
+            for (char bit : text.toCharArray()) {
+                if (bit != '0' && bit != '1')
+                    throw new InvalidEncodedTextException("Invalid Action. The decoded text contains invalid code/s.");
+
+                currentNode = (bit == '0') ? currentNode.getLeftNode() : currentNode.getRightNode();
+                if (currentNode.isLeaf()) {
+                    decodedString.append(currentNode.getData());
+                    currentNode = root;
+                }
+            }
+
+            if (!text.isEmpty() && decodedString.isEmpty())
+                throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+        } catch (InvalidEncodedTextException e) {
+            if (instrumented)
+                HuffmanInstrumentation.decodeFailed(e);
+            throw e;
+        }
+
+        if (instrumented)
+            HuffmanInstrumentation.decoded(text.length(), decodedString.length(), System.nanoTime() - startTime);
+        return decodedString.toString();
+    }
+
+    /**
+     * Method to decode a given text using a prebuilt lookup table decoder.
+     * Reusing the decoder avoids rebuilding its tables for every message.
+     *
+     * @param text the text to be decoded
+     * @param decoder the table decoder built from the Huffman Code
+     * @return string representing the decoded text
+     * @throws InvalidEncodedTextException if the encoded text is invalid
+     * */
+    public String decode(String text, TableDecoder decoder) throws InvalidEncodedTextException {
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        String decodedString;
+        try {
+            decodedString = decoder.decode(EncodedBits.fromBitString(text));
+
+            if (!text.isEmpty() && decodedString.isEmpty())
+                throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+        } catch (InvalidEncodedTextException e) {
+            if (instrumented)
+                HuffmanInstrumentation.decodeFailed(e);
+            throw e;
+        }
 
-            currentNode = (bit == '0') ? currentNode.getLeftNode() : currentNode.getRightNode();
+        if (instrumented)
+            HuffmanInstrumentation.decoded(text.length(), decodedString.length(), System.nanoTime() - startTime);
+        return decodedString;
+    }
+
+    /**
+     * Method to decode bit-packed text by walking the Huffman tree one bit at a time.
+     * This is the reference decoder; {@link TableDecoder} is faster for longer texts.
+     * Trailing bits that don't complete a code are ignored.
+     *
+     * @param bits the packed bits to decode
+     * @param root the root node of the Huffman tree
+     * @return string representing the decoded text
+     * */
+    public String decode(EncodedBits bits, Node root) {
+        return decode(bits.reader(), bits.getBitLength(), root);
+    }
+
+    /**
+     * Method to decode a number of bits from a bit reader using the Huffman tree.
+     * Trailing bits that don't complete a code are consumed but ignored.
+     *
+     * @param in the bit reader to read from
+     * @param bitLength the number of bits to decode
+     * @param root the root node of the Huffman tree
+     * @return string representing the decoded text
+     * */
+    public String decode(BitReader in, long bitLength, Node root) {
+        boolean instrumented = HuffmanInstrumentation.isActive();
+        long startTime = instrumented ? System.nanoTime() : 0;
+        StringBuilder decodedString = new StringBuilder();
+        Node currentNode = root;
+        for (long i = 0; i < bitLength; i++) {
+            currentNode = (in.readBit() == 0) ? currentNode.getLeftNode() : currentNode.getRightNode();
             if (currentNode.isLeaf()) {
                 decodedString.append(currentNode.getData());
                 currentNode = root;
             }
         }
-
-        if (!text.isEmpty() && decodedString.isEmpty())
-            throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
-
+        if (instrumented)
+            HuffmanInstrumentation.decoded(bitLength, decodedString.length(), System.nanoTime() - startTime);
         return decodedString.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming file compressor that Huffman-codes the raw bytes of a file with bounded memory.
+ *
+ * Compression makes two passes over the input: the first counts byte frequencies and the second encodes.
+ * Decompression is a single pass. Both read and write through fixed-size direct buffers, so memory use
+ * doesn't depend on the file size, and the round trip is byte-exact (line endings and whitespace are kept).
+ *
+ * The compressed file consists of a magic number, the original length in bytes, the canonical codebook
+ * header (omitted for empty files) and the packed codes.
+ */
+public class HuffmanFileCompressor {
+    /** Magic number at the start of every compressed file ("HUF1"). */
+    public static final int MAGIC = 0x48554631;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FrequencyCounter frequencyCounter = new FrequencyCounter();
+
+    /**
+     * Compresses a file.
+     *
+     * @param input the file to compress
+     * @param output the file to write the compressed data to
+     * @return the size of the compressed file in bytes
+     * @throws IOException if reading or writing fails
+     */
+    public long compress(Path input, Path output) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // First pass: count byte frequencies
+            long[] counts = new long[256];
+            long length = 0;
+            while (in.read(buffer.clear()) >= 0) {
+                buffer.flip();
+                length += buffer.remaining();
+                frequencyCounter.countInto(buffer, counts);
+            }
+
+            ByteHuffmanCodec codec = length > 0 ? ByteHuffmanCodec.fromHistogram(counts) : null;
+            writeHeader(out, length, codec);
+            if (codec == null)
+                return out.size();
+
+            // Second pass: encode
+            in.position(0);
+            BitWriter bits = new BitWriter(out, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            while (in.read(buffer.clear()) >= 0) {
+                codec.encode(buffer.flip(), bits);
+            }
+            bits.flush();
+            return out.size();
+        }
+    }
+
+    /**
+     * Decompresses a file written by {@link #compress(Path, Path)}.
+     *
+     * @param input the compressed file
+     * @param output the file to write the original bytes to
+     * @return the number of bytes written
+     * @throws IOException if reading or writing fails, or the input isn't a compressed file
+     */
+    public long decompress(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // The header is read unbuffered so the channel is left positioned at the first code
+            DataInputStream header = new DataInputStream(Channels.newInputStream(in));
+            if (header.readInt() != MAGIC)
+                throw new IOException("Not a Huffman compressed file: " + input);
+
+            long length = header.readLong();
+            if (length == 0)
+                return 0;
+
+            ByteHuffmanCodec codec = ByteHuffmanCodec.read(header);
+            BitReader bits = new BitReader(in, ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try {
+                for (long remaining = length; remaining > 0; remaining -= buffer.limit()) {
+                    buffer.clear().limit((int) Math.min(BUFFER_SIZE, remaining));
+                    codec.decode(bits, buffer);
+                    writeFully(out, buffer);
+                }
+            } catch (InvalidEncodedTextException e) {
+                throw new IOException("Corrupt compressed file: " + input, e);
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Writes the file header: magic number, original length and, for non-empty files, the codebook.
+     *
+     * @param out the channel to write to
+     * @param length the original length in bytes
+     * @param codec the codec whose codebook is written, or null for an empty file
+     * @throws IOException if writing fails
+     */
+    static void writeHeader(FileChannel out, long length, ByteHuffmanCodec codec) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeLong(length);
+        if (codec != null)
+            codec.write(header);
+        header.flush();
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package midtermlabproject3;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * GUI class to display the Huffman encoding tree and the frequency table with corresponding Huffman codes.
@@ -13,101 +15,137 @@ import java.util.Map;
  * for displaying the frequency of characters and their Huffman codes.
  * The GUI is split into two sections: one for the Huffman tree and the other for the frequency table.
  *
+ * The tree is shown through a {@link HuffmanTreeModel} that expands nodes on demand, and the table through
+ * a model backed by plain arrays, both prepared in a `SwingWorker` so the window stays responsive for
+ * alphabets with tens of thousands of characters. Small trees are still expanded in full.
+ * Like any Swing component, the GUI must be created and shown on the event dispatch thread.
+ *
  * @author Hyowon Arzil Bernabe
  */
 public class HuffmanGUI {
+    private static final int EXPAND_ALL_LIMIT = 256; // Trees with more leaves start with only the root expanded
+
     private JFrame frame;  // Main window of the GUI
     private JTree tree;    // JTree for displaying the Huffman Tree
     private JTable table;  // JTable for displaying the frequency table and Huffman codes
+    private JLabel status; // Progress of the background build
+    private final SwingWorker<CodeTableModel, Void> builder;
 
     /**
      * Constructor for initializing the GUI with the Huffman tree root, frequency table, and Huffman codes.
+     * The models are built in the background once the GUI is shown.
      *
      * @param huffmanRoot the root node of the Huffman tree
      * @param frequencyTable a map containing the frequency of each character in the input text
      * @param huffmanCodes a map containing the Huffman codes for each character
      */
-    public HuffmanGUI(Node huffmanRoot, Map<Character, Integer> frequencyTable, Map<Character, String> huffmanCodes) {
+    public HuffmanGUI(Node huffmanRoot, Map<Character, Long> frequencyTable, Map<Character, String> huffmanCodes) {
         frame = new JFrame("Huffman Encoding GUI");
         frame.setLayout(new BorderLayout());
         frame.setSize(500, 400);
         frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
-        // Initialize the JTree for the Huffman Tree
-        DefaultMutableTreeNode rootNode = buildTree(huffmanRoot);
-        tree = new JTree(rootNode);
-        expandAllNodes(tree);  // Expand all nodes in the JTree for full visibility
+        // Initialize the JTree for the Huffman Tree, empty until the worker is done
+        tree = new JTree(new HuffmanTreeModel(null)) {
+            @Override
+            public String convertValueToText(Object value, boolean selected, boolean expanded, boolean leaf, int row, boolean hasFocus) {
+                return value instanceof Node node ? HuffmanTreeModel.label(node) : String.valueOf(value);
+            }
+        };
+        tree.setLargeModel(true);  // Fixed row heights, so only visible rows are measured
+        tree.setRowHeight(18);
         JScrollPane treeScrollPane = new JScrollPane(tree);
 
         // Initialize the JTable for the Frequency Table and Huffman Codes
-        table = new JTable();
-        DefaultTableModel tableModel = new DefaultTableModel(new Object[]{"Character", "Frequency", "Huffman Code"}, 0);
-        table.setModel(tableModel);
-        fillTableModel(tableModel, frequencyTable, huffmanCodes);  // Populate the table
+        table = new JTable(new CodeTableModel(new char[0], new long[0], new String[0]));
+        table.setAutoCreateRowSorter(true);
         JScrollPane tableScrollPane = new JScrollPane(table);
 
         // Add the tree and table to a split pane for a two-panel layout
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, treeScrollPane, tableScrollPane);
         splitPane.setDividerLocation(200);
         frame.add(splitPane, BorderLayout.CENTER);
+        status = new JLabel("Building Huffman tree view...");
+        frame.add(status, BorderLayout.SOUTH);
+
+        builder = new SwingWorker<>() {
+            private int leaves;
+
+            @Override
+            protected CodeTableModel doInBackground() {
+                leaves = countLeaves(huffmanRoot);
+                return buildTableModel(frequencyTable, huffmanCodes);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    table.setModel(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    status.setText("Error: " + e.getMessage());
+                    return;
+                }
+                tree.setModel(new HuffmanTreeModel(huffmanRoot));
+                if (leaves <= EXPAND_ALL_LIMIT)
+                    expandAllNodes(tree);  // Expand all nodes in the JTree for full visibility
+                status.setText(table.getRowCount() + " characters, " + leaves + " leaves");
+            }
+        };
     }
 
     /**
-     * Displays the GUI frame on the screen.
+     * Displays the GUI frame on the screen and starts building the tree and table views.
      * The frame will be centered on the screen and always remain on top.
      */
     public void show() {
         frame.setVisible(true);
         frame.setLocationRelativeTo(null);  // Center the window
         frame.setAlwaysOnTop(true);         // Keep the window always on top
+        builder.execute();
     }
 
     /**
-     * Recursively builds the Huffman tree for display in the `JTree`.
-     * This method creates tree nodes for each internal node and leaf node in the Huffman tree.
+     * Counts the leaves of the Huffman tree without recursion, so deep trees can't overflow the stack.
      *
-     * @param node the current node in the Huffman tree
-     * @return a `DefaultMutableTreeNode` representing the current node
+     * @param root the root node of the Huffman tree
+     * @return the number of leaves
      */
-    private DefaultMutableTreeNode buildTree(Node node) {
-        if (node == null) {
-            return null;
-        }
-
-        DefaultMutableTreeNode treeNode;
-        if (node.isLeaf()) {
-            // Leaf node displays both the frequency and the character
-            treeNode = new DefaultMutableTreeNode(node.getFrequency() + " (" + node.getData() + ")");
-        } else {
-            // Internal node displays only the frequency
-            treeNode = new DefaultMutableTreeNode(node.getFrequency());
+    private static int countLeaves(Node root) {
+        int leaves = 0;
+        Deque<Node> stack = new ArrayDeque<>();
+        if (root != null)
+            stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.isLeaf())
+                leaves++;
+            if (node.getLeftNode() != null)
+                stack.push(node.getLeftNode());
+            if (node.getRightNode() != null)
+                stack.push(node.getRightNode());
         }
-
-        // Recursively add left and right child nodes if they exist
-        if (node.getLeftNode() != null) {
-            treeNode.add(buildTree(node.getLeftNode()));
-        }
-        if (node.getRightNode() != null) {
-            treeNode.add(buildTree(node.getRightNode()));
-        }
-
-        return treeNode;
+        return leaves;
     }
 
     /**
-     * Fills the `JTable` model with the frequency of each character and its corresponding Huffman code.
+     * Copies the frequency of each character and its corresponding Huffman code into a table model.
      *
-     * @param tableModel the table model for the `JTable` that holds the data
      * @param frequencyTable a map containing the frequency of each character in the input text
      * @param huffmanCodes a map containing the Huffman codes for each character
+     * @return the table model for the `JTable`
      */
-    private void fillTableModel(DefaultTableModel tableModel, Map<Character, Integer> frequencyTable, Map<Character, String> huffmanCodes) {
-        for (Map.Entry<Character, Integer> entry : frequencyTable.entrySet()) {
-            Character character = entry.getKey();
-            Integer frequency = entry.getValue();
-            String code = huffmanCodes.get(character);
-            tableModel.addRow(new Object[]{character, frequency, code});
+    private static CodeTableModel buildTableModel(Map<Character, Long> frequencyTable, Map<Character, String> huffmanCodes) {
+        char[] characters = new char[frequencyTable.size()];
+        long[] frequencies = new long[frequencyTable.size()];
+        String[] codes = new String[frequencyTable.size()];
+        int row = 0;
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            characters[row] = entry.getKey();
+            frequencies[row] = entry.getValue();
+            codes[row] = huffmanCodes.get(entry.getKey());
+            row++;
         }
+        return new CodeTableModel(characters, frequencies, codes);
     }
 
     /**
@@ -121,4 +159,53 @@ public class HuffmanGUI {
             tree.expandRow(i);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Read-only table model over parallel arrays of characters, frequencies and codes.
+     */
+    private static class CodeTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        private static final String[] COLUMNS = {"Character", "Frequency", "Huffman Code"};
+        private static final Class<?>[] COLUMN_CLASSES = {Character.class, Long.class, String.class};
+
+        private final char[] characters;
+        private final long[] frequencies;
+        private final String[] codes;
+
+        CodeTableModel(char[] characters, long[] frequencies, String[] codes) {
+            this.characters = characters;
+            this.frequencies = frequencies;
+            this.codes = codes;
+        }
+
+        @Override
+        public int getRowCount() {
+            return characters.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return COLUMN_CLASSES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return switch (column) {
+                case 0 -> characters[row];
+                case 1 -> frequencies[row];
+                default -> codes[row];
+            };
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package midtermlabproject3;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.Timespan;
+
+import java.util.Map;
+
+/**
+ * Central switch for instrumentation of the encode and decode hot paths.
+ *
+ * Measurements go to an optional {@link HuffmanMetrics} listener and to custom JFR events, which show up
+ * under "Huffman" in a flight recording. Instrumented methods check {@link #isActive()} once per call,
+ * a single volatile read, and skip all timing and event work when neither a listener is registered nor a
+ * flight recording is running, so the overhead is near zero when instrumentation is off.
+ */
+public final class HuffmanInstrumentation {
+    private static volatile HuffmanMetrics listener;
+    private static volatile boolean recording;
+    private static volatile boolean active;
+
+    static {
+        // Tracks whether any flight recording is running; this doesn't start or initialize JFR by itself
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                updateRecording(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                updateRecording(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private HuffmanInstrumentation() {
+    }
+
+    /**
+     * Registers the metrics listener, replacing the previous one.
+     *
+     * @param metrics the listener, or null to stop reporting to a listener
+     */
+    public static void setListener(HuffmanMetrics metrics) {
+        listener = metrics;
+        active = metrics != null || recording;
+    }
+
+    /**
+     * Gets the registered metrics listener.
+     *
+     * @return the listener, or null if none is registered
+     */
+    public static HuffmanMetrics getListener() {
+        return listener;
+    }
+
+    /**
+     * Checks whether measurements are being collected.
+     *
+     * @return true if a listener is registered or a flight recording is running
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Reports a built tree. Computes the average code length and entropy, so only call it when active.
+     */
+    static void treeBuilt(FlatHuffmanTree tree, Map<Character, Long> frequencyTable, long nanos) {
+        int[] codeLengths = new int[tree.getLeafCount() == 0 ? 0 : maxSymbol(frequencyTable) + 1];
+        int depth = tree.codeLengths(codeLengths);
+
+        long total = 0, bits = 0;
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            total += entry.getValue();
+            bits += entry.getValue() * codeLengths[entry.getKey()];
+        }
+        double entropy = 0;
+        for (long frequency : frequencyTable.values()) {
+            if (frequency > 0) {
+                double p = (double) frequency / total;
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        double averageCodeLength = total == 0 ? 0 : (double) bits / total;
+
+        HuffmanMetrics metrics = listener;
+        if (metrics != null)
+            metrics.treeBuilt(tree.getLeafCount(), depth, averageCodeLength, entropy, nanos);
+
+        TreeBuildEvent event = new TreeBuildEvent();
+        if (event.isEnabled()) {
+            event.symbolCount = tree.getLeafCount();
+            event.treeDepth = depth;
+            event.averageCodeLength = averageCodeLength;
+            event.entropy = entropy;
+            event.buildTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void encoded(long symbols, long bits, long nanos) {
+        HuffmanMetrics metrics = listener;
+        if (metrics != null)
+            metrics.encoded(symbols, bits, nanos);
+
+        EncodeEvent event = new EncodeEvent();
+        if (event.isEnabled()) {
+            event.symbols = symbols;
+            event.bits = bits;
+            event.encodeTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void decoded(long bits, long symbols, long nanos) {
+        HuffmanMetrics metrics = listener;
+        if (metrics != null)
+            metrics.decoded(bits, symbols, nanos);
+
+        DecodeEvent event = new DecodeEvent();
+        if (event.isEnabled()) {
+            event.bits = bits;
+            event.symbols = symbols;
+            event.decodeTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void decodeFailed(InvalidEncodedTextException exception) {
+        HuffmanMetrics metrics = listener;
+        if (metrics != null)
+            metrics.decodeFailed(exception);
+
+        DecodeErrorEvent event = new DecodeErrorEvent();
+        if (event.isEnabled()) {
+            event.message = exception.getMessage();
+            event.commit();
+        }
+    }
+
+    private static int maxSymbol(Map<Character, Long> frequencyTable) {
+        int max = 0;
+        for (char character : frequencyTable.keySet()) {
+            max = Math.max(max, character);
+        }
+        return max;
+    }
+
+    private static void updateRecording(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording r : recorder.getRecordings()) {
+            running |= r.getState() == RecordingState.RUNNING;
+        }
+        recording = running;
+        active = listener != null || running;
+    }
+
+    @Name("midtermlabproject3.TreeBuild")
+    @Label("Huffman Tree Build")
+    @Category("Huffman")
+    @Description("A Huffman tree was built from a frequency table")
+    static class TreeBuildEvent extends Event {
+        @Label("Symbols")
+        int symbolCount;
+
+        @Label("Tree Depth")
+        int treeDepth;
+
+        @Label("Average Code Length")
+        @Description("Bits per symbol, weighted by frequency")
+        double averageCodeLength;
+
+        @Label("Entropy")
+        @Description("Shannon entropy in bits per symbol")
+        double entropy;
+
+        @Label("Build Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long buildTime;
+    }
+
+    @Name("midtermlabproject3.Encode")
+    @Label("Huffman Encode")
+    @Category("Huffman")
+    static class EncodeEvent extends Event {
+        @Label("Symbols")
+        long symbols;
+
+        @Label("Bits Out")
+        @DataAmount(DataAmount.BITS)
+        long bits;
+
+        @Label("Encode Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long encodeTime;
+    }
+
+    @Name("midtermlabproject3.Decode")
+    @Label("Huffman Decode")
+    @Category("Huffman")
+    static class DecodeEvent extends Event {
+        @Label("Bits In")
+        @DataAmount(DataAmount.BITS)
+        long bits;
+
+        @Label("Symbols")
+        long symbols;
+
+        @Label("Decode Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long decodeTime;
+    }
+
+    @Name("midtermlabproject3.DecodeError")
+    @Label("Huffman Decode Error")
+    @Category("Huffman")
+    static class DecodeErrorEvent extends Event {
+        @Label("Message")
+        String message;
+    }
+}
@@ -0,0 +1,50 @@
+package midtermlabproject3;
+
+/**
+ * Listener for measurements of the encode and decode hot paths, registered with
+ * {@link HuffmanInstrumentation#setListener(HuffmanMetrics)}.
+ *
+ * Methods are called on the thread that did the work, so implementations must be thread-safe and cheap.
+ * All methods do nothing by default, so a listener only overrides what it needs.
+ */
+public interface HuffmanMetrics {
+    /**
+     * Called after a Huffman tree was built from a frequency table.
+     *
+     * @param symbolCount the number of distinct symbols
+     * @param treeDepth the depth of the tree, i.e. the longest code length
+     * @param averageCodeLength the average code length in bits per symbol, weighted by frequency
+     * @param entropy the Shannon entropy of the frequency table in bits per symbol
+     * @param nanos the time taken to build the tree
+     */
+    default void treeBuilt(int symbolCount, int treeDepth, double averageCodeLength, double entropy, long nanos) {
+    }
+
+    /**
+     * Called after a text was encoded.
+     *
+     * @param symbols the number of characters encoded
+     * @param bits the number of bits written
+     * @param nanos the time taken to encode
+     */
+    default void encoded(long symbols, long bits, long nanos) {
+    }
+
+    /**
+     * Called after bits were decoded.
+     *
+     * @param bits the number of bits read
+     * @param symbols the number of characters decoded
+     * @param nanos the time taken to decode
+     */
+    default void decoded(long bits, long symbols, long nanos) {
+    }
+
+    /**
+     * Called when decoding failed because the bits don't match any code.
+     *
+     * @param exception the exception that is about to be thrown
+     */
+    default void decodeFailed(InvalidEncodedTextException exception) {
+    }
+}
@@ -0,0 +1,90 @@
+package midtermlabproject3;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * Read-only `TreeModel` that exposes a Huffman tree of {@link Node}s to a `JTree` directly.
+ *
+ * Unlike a `DefaultMutableTreeNode` copy, nothing is allocated per node: the `JTree` asks for the children
+ * of a node only when it is expanded, so opening a tree with tens of thousands of leaves costs no more
+ * than the rows that are actually visible.
+ */
+public class HuffmanTreeModel implements TreeModel {
+    private final Node root;
+    private final EventListenerList listeners = new EventListenerList();
+
+    /**
+     * Constructor for a model of the given tree.
+     *
+     * @param root the root node of the Huffman tree, or null for an empty tree
+     */
+    public HuffmanTreeModel(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the text shown for a node: the frequency, followed by the character for a leaf.
+     *
+     * @param node the node
+     * @return the label of the node
+     */
+    public static String label(Node node) {
+        return node.isLeaf() ? node.getFrequency() + " (" + node.getData() + ")" : String.valueOf(node.getFrequency());
+    }
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        Node node = (Node) parent;
+        if (index == 0)
+            return node.getLeftNode() != null ? node.getLeftNode() : node.getRightNode();
+        return index == 1 && node.getLeftNode() != null ? node.getRightNode() : null;
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        Node node = (Node) parent;
+        return (node.getLeftNode() != null ? 1 : 0) + (node.getRightNode() != null ? 1 : 0);
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return ((Node) node).isLeaf();
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == null || child == null)
+            return -1;
+
+        for (int i = 0; i < getChildCount(parent); i++) {
+            if (getChild(parent, i) == child)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * The tree can't be edited, so this does nothing.
+     */
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(TreeModelListener.class, listener);
+    }
+}
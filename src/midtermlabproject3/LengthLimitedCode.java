@@ -0,0 +1,92 @@
+package midtermlabproject3;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds optimal prefix code lengths with a maximum code length using the package-merge algorithm.
+ *
+ * Package-merge treats every symbol as a coin per allowed length. Starting from the sorted leaves, it
+ * repeatedly pairs the cheapest items into packages and merges them with a fresh copy of the leaves,
+ * once per extra level. The cheapest {@code 2n - 2} items of the last list then give each symbol's code
+ * length: the number of times that symbol occurs in them.
+ */
+public class LengthLimitedCode {
+
+    private LengthLimitedCode() {
+    }
+
+    /**
+     * Computes optimal code lengths that don't exceed the given maximum.
+     *
+     * @param frequencyTable map of characters and their respective frequencies
+     * @param maxLength the maximum code length in bits
+     * @return map of characters to their code lengths
+     * @throws IllegalArgumentException if the symbols can't all get a code of at most {@code maxLength} bits
+     */
+    public static Map<Character, Integer> codeLengths(Map<Character, Long> frequencyTable, int maxLength) {
+        int n = frequencyTable.size();
+        if (maxLength < 1 || maxLength > HuffmanCodebook.MAX_CODE_LENGTH)
+            throw new IllegalArgumentException("The maximum code length must be between 1 and " + HuffmanCodebook.MAX_CODE_LENGTH + ".");
+        if (maxLength < 63 && n > 1L << maxLength)
+            throw new IllegalArgumentException(n + " symbols don't fit in codes of at most " + maxLength + " bits.");
+
+        Map<Character, Integer> codeLengths = new HashMap<>();
+        if (n == 1) {
+            codeLengths.put(frequencyTable.keySet().iterator().next(), 0); // Same as a lone leaf in the tree
+            return codeLengths;
+        }
+
+        List<Item> leaves = new ArrayList<>(n);
+        for (Map.Entry<Character, Long> entry : frequencyTable.entrySet()) {
+            leaves.add(new Item(entry.getValue(), entry.getKey(), null, null));
+        }
+        leaves.sort((a, b) -> a.weight != b.weight ? Long.compare(a.weight, b.weight) : Character.compare(a.symbol, b.symbol));
+
+        List<Item> current = leaves;
+        for (int level = 1; level < maxLength; level++) {
+            List<Item> packages = new ArrayList<>(current.size() / 2);
+            for (int i = 0; i + 1 < current.size(); i += 2) {
+                Item left = current.get(i), right = current.get(i + 1);
+                packages.add(new Item(left.weight + right.weight, '\0', left, right));
+            }
+            current = merge(leaves, packages);
+        }
+
+        // Each occurrence of a leaf in the selected items adds one bit to its code
+        Deque<Item> stack = new ArrayDeque<>(current.subList(0, 2 * n - 2));
+        while (!stack.isEmpty()) {
+            Item item = stack.pop();
+            if (item.left == null) {
+                codeLengths.merge(item.symbol, 1, Integer::sum);
+            } else {
+                stack.push(item.left);
+                stack.push(item.right);
+            }
+        }
+        return codeLengths;
+    }
+
+    private static List<Item> merge(List<Item> leaves, List<Item> packages) {
+        List<Item> merged = new ArrayList<>(leaves.size() + packages.size());
+        int i = 0, j = 0;
+        while (i < leaves.size() || j < packages.size()) {
+            if (j == packages.size() || (i < leaves.size() && leaves.get(i).weight <= packages.get(j).weight)) {
+                merged.add(leaves.get(i++));
+            } else {
+                merged.add(packages.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Leaf (a symbol with its weight) or package (two items combined).
+     */
+    private record Item(long weight, char symbol, Item left, Item right) {
+    }
+}
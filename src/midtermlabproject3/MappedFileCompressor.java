@@ -0,0 +1,135 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File compressor that works directly on memory-mapped regions of the input and output files.
+ *
+ * Frequencies are counted and codes are written over {@link MappedByteBuffer} windows, so no data is copied
+ * through heap buffers. Files larger than 2 GB are processed as a sequence of windows. Since the exact
+ * compressed size is known from the histogram and code lengths before encoding, the output is mapped at its
+ * final size up front.
+ *
+ * The output uses the same format as {@link HuffmanFileCompressor}, which can decompress it.
+ */
+public class MappedFileCompressor {
+    /** Default size of each mapped window in bytes. */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final int windowSize;
+    private final FrequencyCounter frequencyCounter = new FrequencyCounter();
+
+    /**
+     * Constructor for a compressor that maps 1 GB windows.
+     */
+    public MappedFileCompressor() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructor for a compressor that maps windows of the given size.
+     *
+     * @param windowSize the size of each mapped window in bytes, at least 8
+     */
+    public MappedFileCompressor(int windowSize) {
+        if (windowSize < 8)
+            throw new IllegalArgumentException("The window size must be at least 8 bytes.");
+
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Compresses a file through memory-mapped windows.
+     *
+     * @param input the file to compress
+     * @param output the file to write the compressed data to
+     * @return the size of the compressed file in bytes
+     * @throws IOException if reading or writing fails
+     */
+    public long compress(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // First pass: count byte frequencies window by window
+            long length = in.size();
+            long[] counts = new long[256];
+            for (long position = 0; position < length; position += windowSize) {
+                MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, length - position));
+                frequencyCounter.countInto(region, counts);
+            }
+
+            ByteHuffmanCodec codec = length > 0 ? ByteHuffmanCodec.fromHistogram(counts) : null;
+            HuffmanFileCompressor.writeHeader(out, length, codec);
+            if (codec == null)
+                return out.size();
+
+            // Codes are limited to 32 bits, so each one fits a single register write
+            int[] codes = new int[256];
+            int[] lengths = new int[256];
+            for (int b = 0; b < 256; b++) {
+                codes[b] = codec.getCode(b);
+                lengths[b] = codec.getLength(b);
+            }
+            long compressedBits = codec.getEncodedBits(counts);
+
+            // Second pass: encode from the mapped input straight into the mapped output
+            MappedBitWriter bits = new MappedBitWriter(out, out.size() + (compressedBits + 7) / 8);
+            for (long position = 0; position < length; position += windowSize) {
+                MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, length - position));
+                for (int i = 0, end = region.limit(); i < end; i++) {
+                    int symbol = region.get(i) & 0xFF;
+                    bits.writeBits(codes[symbol], lengths[symbol]);
+                }
+            }
+            bits.finish();
+            return out.size();
+        }
+    }
+
+    /**
+     * Bit writer that packs codes straight into successive mapped windows of the output file.
+     */
+    private class MappedBitWriter {
+        private final FileChannel output;
+        private final long outputSize;
+        private long windowStart;
+        private MappedByteBuffer window;
+        private long bitBuffer;
+        private int bitCount;
+
+        MappedBitWriter(FileChannel output, long outputSize) throws IOException {
+            this.output = output;
+            this.outputSize = outputSize;
+            this.windowStart = output.size();
+            this.window = output.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.min(windowSize, outputSize - windowStart));
+        }
+
+        void writeBits(int code, int length) throws IOException {
+            bitBuffer = (bitBuffer << length) | (code & 0xFFFFFFFFL);
+            bitCount += length;
+            while (bitCount >= 8) {
+                bitCount -= 8;
+                if (!window.hasRemaining())
+                    nextWindow();
+                window.put((byte) (bitBuffer >>> bitCount));
+            }
+        }
+
+        void finish() throws IOException {
+            if (bitCount > 0) {
+                if (!window.hasRemaining())
+                    nextWindow();
+                window.put((byte) (bitBuffer << (8 - bitCount)));
+            }
+        }
+
+        private void nextWindow() throws IOException {
+            windowStart += window.capacity();
+            window = output.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.min(windowSize, outputSize - windowStart));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package midtermlabproject3;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe {@link HuffmanMetrics} listener that keeps counters and power-of-two histograms in memory.
+ *
+ * Register it with {@link HuffmanInstrumentation#setListener(HuffmanMetrics)} and read the totals, rates
+ * and histograms at any time, e.g. with {@link #toString()}.
+ */
+public class MetricsRecorder implements HuffmanMetrics {
+    private final LongAdder treesBuilt = new LongAdder();
+    private final LongAdder treeBuildNanos = new LongAdder();
+    private final LongAdder encodeCalls = new LongAdder();
+    private final LongAdder symbolsEncoded = new LongAdder();
+    private final LongAdder bitsEncoded = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder decodeCalls = new LongAdder();
+    private final LongAdder bitsDecoded = new LongAdder();
+    private final LongAdder symbolsDecoded = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder decodeErrors = new LongAdder();
+    private final LongAccumulator maxTreeDepth = new LongAccumulator(Math::max, 0);
+    private final Histogram treeDepths = new Histogram();
+    private final Histogram treeBuildTimes = new Histogram();
+    private final Histogram encodeTimes = new Histogram();
+    private final Histogram decodeTimes = new Histogram();
+    private volatile double lastAverageCodeLength;
+    private volatile double lastEntropy;
+
+    @Override
+    public void treeBuilt(int symbolCount, int treeDepth, double averageCodeLength, double entropy, long nanos) {
+        treesBuilt.increment();
+        treeBuildNanos.add(nanos);
+        maxTreeDepth.accumulate(treeDepth);
+        treeDepths.record(treeDepth);
+        treeBuildTimes.record(nanos);
+        lastAverageCodeLength = averageCodeLength;
+        lastEntropy = entropy;
+    }
+
+    @Override
+    public void encoded(long symbols, long bits, long nanos) {
+        encodeCalls.increment();
+        symbolsEncoded.add(symbols);
+        bitsEncoded.add(bits);
+        encodeNanos.add(nanos);
+        encodeTimes.record(nanos);
+    }
+
+    @Override
+    public void decoded(long bits, long symbols, long nanos) {
+        decodeCalls.increment();
+        bitsDecoded.add(bits);
+        symbolsDecoded.add(symbols);
+        decodeNanos.add(nanos);
+        decodeTimes.record(nanos);
+    }
+
+    @Override
+    public void decodeFailed(InvalidEncodedTextException exception) {
+        decodeErrors.increment();
+    }
+
+    /**
+     * Gets the number of trees built.
+     *
+     * @return the number of trees
+     */
+    public long getTreesBuilt() {
+        return treesBuilt.sum();
+    }
+
+    /**
+     * Gets the number of encode calls.
+     *
+     * @return the number of calls
+     */
+    public long getEncodeCalls() {
+        return encodeCalls.sum();
+    }
+
+    /**
+     * Gets the number of characters encoded.
+     *
+     * @return the number of symbols
+     */
+    public long getSymbolsEncoded() {
+        return symbolsEncoded.sum();
+    }
+
+    /**
+     * Gets the number of bits written by the encoder.
+     *
+     * @return the number of bits
+     */
+    public long getBitsEncoded() {
+        return bitsEncoded.sum();
+    }
+
+    /**
+     * Gets the number of successful decode calls.
+     *
+     * @return the number of calls
+     */
+    public long getDecodeCalls() {
+        return decodeCalls.sum();
+    }
+
+    /**
+     * Gets the number of bits read by the decoder.
+     *
+     * @return the number of bits
+     */
+    public long getBitsDecoded() {
+        return bitsDecoded.sum();
+    }
+
+    /**
+     * Gets the number of characters decoded.
+     *
+     * @return the number of symbols
+     */
+    public long getSymbolsDecoded() {
+        return symbolsDecoded.sum();
+    }
+
+    /**
+     * Gets the number of decode calls that failed with an {@link InvalidEncodedTextException}.
+     *
+     * @return the number of errors
+     */
+    public long getDecodeErrors() {
+        return decodeErrors.sum();
+    }
+
+    /**
+     * Gets the encode throughput over the time spent inside encode calls.
+     *
+     * @return symbols encoded per second, or 0 if nothing was encoded
+     */
+    public double getEncodeSymbolsPerSecond() {
+        long nanos = encodeNanos.sum();
+        return nanos == 0 ? 0 : symbolsEncoded.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * Gets the decode throughput over the time spent inside decode calls.
+     *
+     * @return symbols decoded per second, or 0 if nothing was decoded
+     */
+    public double getDecodeSymbolsPerSecond() {
+        long nanos = decodeNanos.sum();
+        return nanos == 0 ? 0 : symbolsDecoded.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * Gets the average code length actually produced by the encoder.
+     *
+     * @return bits written per symbol encoded, or 0 if nothing was encoded
+     */
+    public double getAverageCodeLength() {
+        long symbols = symbolsEncoded.sum();
+        return symbols == 0 ? 0 : (double) bitsEncoded.sum() / symbols;
+    }
+
+    /**
+     * Gets the average code length of the most recently built tree, to compare with {@link #getLastEntropy()}.
+     *
+     * @return bits per symbol, weighted by frequency
+     */
+    public double getLastTreeAverageCodeLength() {
+        return lastAverageCodeLength;
+    }
+
+    /**
+     * Gets the entropy of the frequency table of the most recently built tree.
+     *
+     * @return the Shannon entropy in bits per symbol
+     */
+    public double getLastEntropy() {
+        return lastEntropy;
+    }
+
+    /**
+     * Gets the histogram of tree depths.
+     *
+     * @return the histogram
+     */
+    public Histogram getTreeDepths() {
+        return treeDepths;
+    }
+
+    /**
+     * Gets the histogram of tree build times in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public Histogram getTreeBuildTimes() {
+        return treeBuildTimes;
+    }
+
+    /**
+     * Gets the histogram of encode call times in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public Histogram getEncodeTimes() {
+        return encodeTimes;
+    }
+
+    /**
+     * Gets the histogram of decode call times in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public Histogram getDecodeTimes() {
+        return decodeTimes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        Trees built: %d (average %.1f us, max depth %d)
+                        Average code length: %.3f bits (entropy %.3f bits)
+                        Encoded: %d calls, %d symbols -> %d bits, %.2f bits/symbol, %.0f symbols/s, p99 %.1f us
+                        Decoded: %d calls, %d bits -> %d symbols, %.0f symbols/s, p99 %.1f us
+                        Decode errors: %d""",
+                getTreesBuilt(), getTreesBuilt() == 0 ? 0 : treeBuildNanos.sum() / 1e3 / getTreesBuilt(),
+                maxTreeDepth.get(),
+                lastAverageCodeLength, lastEntropy,
+                getEncodeCalls(), getSymbolsEncoded(), getBitsEncoded(), getAverageCodeLength(), getEncodeSymbolsPerSecond(),
+                encodeTimes.percentile(0.99) / 1e3,
+                getDecodeCalls(), getBitsDecoded(), getSymbolsDecoded(), getDecodeSymbolsPerSecond(), decodeTimes.percentile(0.99) / 1e3,
+                getDecodeErrors());
+    }
+
+    /**
+     * Lock-free histogram with power-of-two buckets: bucket {@code i} counts values from {@code 2^(i-1)}
+     * to {@code 2^i - 1}, and bucket 0 counts zeros. Percentiles are reported as the bucket's upper bound.
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        /**
+         * Records one value.
+         *
+         * @param value the value, negative values are counted as 0
+         */
+        public void record(long value) {
+            buckets.incrementAndGet(value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value));
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Gets an upper bound of the given percentile.
+         *
+         * @param fraction the percentile as a fraction from 0 to 1, e.g. 0.99
+         * @return the upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+         */
+        public long percentile(double fraction) {
+            long count = getCount();
+            if (count == 0)
+                return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank)
+                    return i == 0 ? 0 : i == 63 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package midtermlabproject3;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Lookup-table decoder that resolves up to {@value #MAX_SYMBOLS_PER_LOOKUP} symbols per table lookup.
+ *
+ * Each entry of the table covers a {@code lookupBits}-bit window and holds every complete code that fits in
+ * the window, back to back, so the short codes that dominate skewed text come out several at a time
+ * instead of wasting most of the window. Windows that start with a code longer than the window fall back to
+ * a single-symbol {@link TableDecoder}.
+ *
+ * An entry is split over two arrays: the symbols packed 16 bits each into a long, and an int with the
+ * number of symbols (bits 8-15) and the number of bits they use (bits 0-7).
+ */
+public class MultiSymbolDecoder {
+    /** Default width of a lookup window in bits. */
+    public static final int DEFAULT_LOOKUP_BITS = 12;
+
+    /** Maximum number of symbols a single lookup can produce. */
+    public static final int MAX_SYMBOLS_PER_LOOKUP = 4;
+
+    private static final int BITS_MASK = 0xFF;
+    private static final int COUNT_SHIFT = 8;
+
+    private final int lookupBits;
+    private final long[] symbols;
+    private final int[] info;
+    private final TableDecoder fallback;
+    private final double averageSymbolsPerLookup;
+    private final int loneSymbol; // The only character when it has an empty code, otherwise -1
+
+    /**
+     * Constructor for a decoder using the default window width.
+     *
+     * @param huffmanCode map of characters to their Huffman codes, e.g. from {@link HuffmanEncoder#buildHuffmanCode}
+     */
+    public MultiSymbolDecoder(Map<Character, String> huffmanCode) {
+        this(huffmanCode, DEFAULT_LOOKUP_BITS);
+    }
+
+    /**
+     * Constructor for a decoder with the given window width.
+     *
+     * @param huffmanCode map of characters to their Huffman codes, e.g. from {@link HuffmanEncoder#buildHuffmanCode}
+     * @param lookupBits the width of a lookup window, from 1 to 16
+     */
+    public MultiSymbolDecoder(Map<Character, String> huffmanCode, int lookupBits) {
+        if (lookupBits < 1 || lookupBits > 16)
+            throw new IllegalArgumentException("Lookup bits must be between 1 and 16.");
+
+        this.lookupBits = lookupBits;
+        this.fallback = new TableDecoder(huffmanCode);
+        this.loneSymbol = huffmanCode.size() == 1 && huffmanCode.values().iterator().next().isEmpty()
+                ? huffmanCode.keySet().iterator().next() : -1;
+        int size = 1 << lookupBits;
+
+        // Single-symbol table: every window that starts with a code of at most lookupBits bits
+        char[] firstSymbol = new char[size];
+        int[] firstLength = new int[size];
+        for (Map.Entry<Character, String> entry : huffmanCode.entrySet()) {
+            String code = entry.getValue();
+            if (code.isEmpty() || code.length() > lookupBits)
+                continue;
+
+            int length = code.length();
+            int start = Integer.parseInt(code, 2) << (lookupBits - length);
+            Arrays.fill(firstSymbol, start, start + (1 << (lookupBits - length)), entry.getKey());
+            Arrays.fill(firstLength, start, start + (1 << (lookupBits - length)), length);
+        }
+
+        // Chain as many codes as fit in each window; bits shifted in from the right are zeros, so a code
+        // only counts if it ends inside the window
+        this.symbols = new long[size];
+        this.info = new int[size];
+        long totalSymbols = 0;
+        for (int window = 0; window < size; window++) {
+            int used = 0, count = 0;
+            long packed = 0;
+            while (count < MAX_SYMBOLS_PER_LOOKUP) {
+                int rest = (window << used) & (size - 1);
+                int length = firstLength[rest];
+                if (length == 0 || used + length > lookupBits)
+                    break;
+
+                packed |= (long) firstSymbol[rest] << (16 * count);
+                used += length;
+                count++;
+            }
+            symbols[window] = packed;
+            info[window] = count << COUNT_SHIFT | used;
+            totalSymbols += count;
+        }
+        this.averageSymbolsPerLookup = (double) totalSymbols / size;
+    }
+
+    /**
+     * Decodes bit-packed text.
+     * Trailing bits that don't complete a code are ignored, like {@link TableDecoder#decode(EncodedBits)}.
+     *
+     * @param bits the packed bits to decode
+     * @return string representing the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(EncodedBits bits) throws InvalidEncodedTextException {
+        return decode(bits.reader(), bits.getBitLength());
+    }
+
+    /**
+     * Decodes a number of bits from the bit reader.
+     * Trailing bits that don't complete a code are consumed but ignored.
+     *
+     * @param in the bit reader to read from
+     * @param bitLength the number of bits to decode
+     * @return string representing the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(BitReader in, long bitLength) throws InvalidEncodedTextException {
+        char[] text = new char[(int) Math.min(Integer.MAX_VALUE - 8, bitLength / 4 + 16)];
+        int produced = 0;
+        long remaining = bitLength;
+
+        // Whole windows while they can't reach past the end; the tail goes through the exact single-symbol path
+        while (remaining >= lookupBits) {
+            if (text.length - produced < MAX_SYMBOLS_PER_LOOKUP)
+                text = Arrays.copyOf(text, text.length + (text.length >> 1));
+
+            int window = in.peekBits(lookupBits);
+            int entry = info[window];
+            int count = entry >>> COUNT_SHIFT;
+            if (count == 0) {
+                long start = in.getBitsRead();
+                char symbol = fallback.decodeSymbol(in);
+                remaining -= in.getBitsRead() - start;
+                if (remaining < 0)
+                    break; // The last code was completed by padding bits
+                text[produced++] = symbol;
+                continue;
+            }
+
+            // Always store four symbols (unused slots are overwritten by the next lookup) to avoid a branch per symbol
+            long packed = symbols[window];
+            text[produced] = (char) packed;
+            text[produced + 1] = (char) (packed >>> 16);
+            text[produced + 2] = (char) (packed >>> 32);
+            text[produced + 3] = (char) (packed >>> 48);
+            produced += count;
+            in.skipBits(entry & BITS_MASK);
+            remaining -= entry & BITS_MASK;
+        }
+
+        String decodedString = new String(text, 0, produced);
+        return remaining > 0 ? decodedString + fallback.decode(in, remaining) : decodedString;
+    }
+
+    /**
+     * Decodes a known number of characters from packed bits.
+     *
+     * @param bits the packed bits to decode
+     * @param length the number of characters to decode
+     * @return string representing the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(EncodedBits bits, int length) throws InvalidEncodedTextException {
+        if (loneSymbol >= 0)
+            return String.valueOf((char) loneSymbol).repeat(length);
+
+        BitReader in = bits.reader();
+        char[] text = new char[length];
+        int produced = 0;
+
+        while (length - produced >= MAX_SYMBOLS_PER_LOOKUP) {
+            int window = in.peekBits(lookupBits);
+            int entry = info[window];
+            int count = entry >>> COUNT_SHIFT;
+            if (count == 0) {
+                text[produced++] = fallback.decodeSymbol(in);
+                continue;
+            }
+
+            // Always store four symbols (unused slots are overwritten by the next lookup) to avoid a branch per symbol
+            long packed = symbols[window];
+            text[produced] = (char) packed;
+            text[produced + 1] = (char) (packed >>> 16);
+            text[produced + 2] = (char) (packed >>> 32);
+            text[produced + 3] = (char) (packed >>> 48);
+            produced += count;
+            in.skipBits(entry & BITS_MASK);
+        }
+        while (produced < length) {
+            text[produced++] = fallback.decodeSymbol(in);
+        }
+        return new String(text);
+    }
+
+    /**
+     * Gets the width of a lookup window.
+     *
+     * @return the window width in bits
+     */
+    public int getLookupBits() {
+        return lookupBits;
+    }
+
+    /**
+     * Gets the average number of symbols per table entry, a rough measure of the expected speedup.
+     *
+     * @return the average number of symbols over all windows
+     */
+    public double getAverageSymbolsPerLookup() {
+        return averageSymbolsPerLookup;
+    }
+}
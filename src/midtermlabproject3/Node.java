@@ -8,7 +8,7 @@ package midtermlabproject3;
  */
 public class Node implements Comparable<Node> {
     private char data;
-    private int frequency;
+    private long frequency;
     private Node leftNode, rightNode;
 
     /**
@@ -17,7 +17,7 @@ public class Node implements Comparable<Node> {
      * @param data the character stored in this node
      * @param frequency the frequency of the character
      */
-    public Node(char data, int frequency) {
+    public Node(char data, long frequency) {
         this.frequency = frequency;
         this.data = data;
         this.leftNode = null;
@@ -31,7 +31,7 @@ public class Node implements Comparable<Node> {
      * @param leftNode the left child node
      * @param rightNode the right child node
      */
-    public Node(int frequency, Node leftNode, Node rightNode) {
+    public Node(long frequency, Node leftNode, Node rightNode) {
         this.data = '\0'; // Null character for internal nodes
         this.frequency = frequency;
         this.leftNode = leftNode;
@@ -52,7 +52,7 @@ public class Node implements Comparable<Node> {
      *
      * @return the frequency of this node
      */
-    public int getFrequency() {
+    public long getFrequency() {
         return frequency;
     }
 
@@ -88,7 +88,7 @@ public class Node implements Comparable<Node> {
      *
      * @param frequency the frequency to be set in this node
      */
-    public void setFrequency(int frequency) {
+    public void setFrequency(long frequency) {
         this.frequency = frequency;
     }
 
@@ -118,7 +118,7 @@ public class Node implements Comparable<Node> {
      */
     @Override
     public int compareTo(Node node) {
-        return Integer.compare(frequency, node.getFrequency());
+        return Long.compare(frequency, node.getFrequency());
     }
 
     /**
@@ -0,0 +1,155 @@
+package midtermlabproject3;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Checkpoint index for random access into Huffman-encoded text.
+ *
+ * Huffman codes have variable lengths, so the bit offset of character N is only known after decoding the
+ * N characters before it. The index records the bit offset of every K-th character, so decoding a slice
+ * can start at the nearest checkpoint and skip at most K - 1 characters, making slice reads take time
+ * proportional to the slice rather than to the whole text. The index costs 8 bytes per K characters and
+ * is stored alongside the encoded bits with {@link #write(DataOutput)}.
+ */
+public class SeekIndex {
+    /** Default number of characters between checkpoints. */
+    public static final int DEFAULT_INTERVAL = 1024;
+
+    private final int interval;
+    private final long symbolCount;
+    private final long[] offsets; // offsets[i] is the bit offset of character i * interval
+
+    /**
+     * Constructor for an index from its checkpoints.
+     *
+     * @param interval the number of characters between checkpoints, at least 1
+     * @param symbolCount the number of characters in the encoded text
+     * @param offsets the bit offset of every {@code interval}-th character, starting with character 0
+     */
+    public SeekIndex(int interval, long symbolCount, long[] offsets) {
+        if (interval < 1)
+            throw new IllegalArgumentException("The checkpoint interval must be positive.");
+        if (symbolCount < 0 || offsets.length != checkpointCount(symbolCount, interval))
+            throw new IllegalArgumentException("The checkpoints don't match the number of characters.");
+
+        this.interval = interval;
+        this.symbolCount = symbolCount;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Builds the index of a text from the code lengths of its characters, without encoding it.
+     *
+     * @param text the text that is or will be encoded
+     * @param codeTable the code table used to encode the text
+     * @param interval the number of characters between checkpoints, at least 1
+     * @return the index
+     * @throws InvalidDecodedTextException if a character has no code
+     */
+    public static SeekIndex build(CharSequence text, CodeTable codeTable, int interval) throws InvalidDecodedTextException {
+        if (interval < 1)
+            throw new IllegalArgumentException("The checkpoint interval must be positive.");
+
+        long[] offsets = new long[(int) checkpointCount(text.length(), interval)];
+        long bits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (i % interval == 0)
+                offsets[i / interval] = bits;
+
+            int length = codeTable.getLength(text.charAt(i));
+            if (length < 0)
+                throw new InvalidDecodedTextException("Invalid Action. Some character/s in the text doesn't match any of the provided character codes.");
+            bits += length;
+        }
+        return new SeekIndex(interval, text.length(), offsets);
+    }
+
+    /**
+     * Reads an index written by {@link #write(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the index
+     * @throws IOException if reading fails or the index is invalid
+     */
+    public static SeekIndex read(DataInput in) throws IOException {
+        int interval = in.readInt();
+        long symbolCount = in.readLong();
+        if (interval < 1 || symbolCount < 0 || checkpointCount(symbolCount, interval) > Integer.MAX_VALUE - 8)
+            throw new IOException("Invalid seek index header.");
+
+        long[] offsets = new long[(int) checkpointCount(symbolCount, interval)];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = in.readLong();
+            if (offsets[i] < 0 || (i > 0 && offsets[i] < offsets[i - 1]))
+                throw new IOException("Invalid seek index: checkpoint offsets must be increasing.");
+        }
+        return new SeekIndex(interval, symbolCount, offsets);
+    }
+
+    /**
+     * Writes the index: the interval (int), the number of characters (long) and each checkpoint (long).
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(interval);
+        out.writeLong(symbolCount);
+        for (long offset : offsets) {
+            out.writeLong(offset);
+        }
+    }
+
+    /**
+     * Gets the index of the checkpoint at or before a character.
+     *
+     * @param position the index of a character
+     * @return the checkpoint index; the checkpoint is at character {@code checkpoint * getInterval()}
+     */
+    public int checkpointBefore(long position) {
+        return (int) (position / interval);
+    }
+
+    /**
+     * Gets the bit offset of a checkpoint.
+     *
+     * @param checkpoint the checkpoint index
+     * @return the bit offset of character {@code checkpoint * getInterval()}
+     */
+    public long getOffset(int checkpoint) {
+        return offsets[checkpoint];
+    }
+
+    /**
+     * Gets the number of characters between checkpoints.
+     *
+     * @return the interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the number of characters in the indexed text.
+     *
+     * @return the number of characters
+     */
+    public long getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * Gets the number of checkpoints.
+     *
+     * @return the number of checkpoints
+     */
+    public int getCheckpointCount() {
+        return offsets.length;
+    }
+
+    private static long checkpointCount(long symbolCount, int interval) {
+        return (symbolCount + interval - 1) / interval;
+    }
+}
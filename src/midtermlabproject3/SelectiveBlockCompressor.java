@@ -0,0 +1,310 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Block compressor that picks the cheapest representation for each block separately.
+ *
+ * Unlike {@link HuffmanBlockCompressor}, which uses one codebook for everything, each block is stored in one
+ * of four modes, chosen from the exact cost computed from the block's histogram and code lengths:
+ * <ul>
+ *     <li>{@link #MODE_RAW}: the bytes as they are, for data that Huffman coding would expand.</li>
+ *     <li>{@link #MODE_SINGLE}: the one byte value of a block that repeats a single byte, with no tree and no bits.</li>
+ *     <li>{@link #MODE_REUSE}: codes from the most recent {@link #MODE_NEW} block's codebook, with no header.</li>
+ *     <li>{@link #MODE_NEW}: a fresh codebook header followed by the codes.</li>
+ * </ul>
+ * Histograms are counted and blocks are encoded and decoded in parallel; only the choice of modes, which
+ * depends on the previous codebook, is sequential and works on the histograms alone.
+ *
+ * The container consists of a magic number, the original length, the block size, the block count, the
+ * mode and end offset of each block, and the block data.
+ */
+public class SelectiveBlockCompressor {
+    /** Magic number at the start of every container ("HUB2"). */
+    public static final int MAGIC = 0x48554232;
+
+    /** Block stored as raw bytes. */
+    public static final byte MODE_RAW = 0;
+
+    /** Block of one repeated byte value, stored as that value. */
+    public static final byte MODE_SINGLE = 1;
+
+    /** Block encoded with the codebook of the most recent new-codebook block. */
+    public static final byte MODE_REUSE = 2;
+
+    /** Block with its own codebook header followed by the codes. */
+    public static final byte MODE_NEW = 3;
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+    private final FrequencyCounter frequencyCounter = new FrequencyCounter();
+
+    /**
+     * Constructor for a compressor that uses the common pool and the default block size.
+     */
+    public SelectiveBlockCompressor() {
+        this(ForkJoinPool.commonPool(), HuffmanBlockCompressor.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor for a compressor with the given pool and block size.
+     *
+     * @param pool the pool that counts, encodes and decodes blocks
+     * @param blockSize the number of input bytes per block, at least 1
+     */
+    public SelectiveBlockCompressor(ForkJoinPool pool, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("The block size must be positive.");
+
+        this.pool = pool;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Compresses the given bytes into a container.
+     *
+     * @param data the bytes to compress
+     * @return the container
+     */
+    public byte[] compress(byte[] data) {
+        int blockCount = (int) ((data.length + (long) blockSize - 1) / blockSize);
+
+        List<Callable<long[]>> counts = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            ByteBuffer block = block(data, i);
+            counts.add(() -> frequencyCounter.count(block));
+        }
+        List<long[]> histograms = HuffmanBlockCompressor.invokeAll(pool, counts);
+
+        // Choose the modes in order, since reusing depends on the codebook of the previous new block
+        byte[] modes = new byte[blockCount];
+        ByteHuffmanCodec[] codecs = new ByteHuffmanCodec[blockCount];
+        ByteHuffmanCodec current = null;
+        for (int i = 0; i < blockCount; i++) {
+            long[] histogram = histograms.get(i);
+            int length = block(data, i).remaining();
+            int symbol = singleSymbol(histogram);
+            if (symbol >= 0) {
+                modes[i] = length > 1 ? MODE_SINGLE : MODE_RAW;
+                continue;
+            }
+
+            long best = length;
+            modes[i] = MODE_RAW;
+            if (current != null && covers(current, histogram)) {
+                long reuseCost = (current.getEncodedBits(histogram) + 7) / 8;
+                if (reuseCost < best) {
+                    best = reuseCost;
+                    modes[i] = MODE_REUSE;
+                    codecs[i] = current;
+                }
+            }
+            if (newCodebookCost(histogram) < best) {
+                modes[i] = MODE_NEW;
+                codecs[i] = ByteHuffmanCodec.fromHistogram(histogram);
+                current = codecs[i];
+            }
+        }
+
+        List<Callable<byte[]>> tasks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            ByteBuffer block = block(data, i);
+            byte mode = modes[i];
+            ByteHuffmanCodec codec = codecs[i];
+            tasks.add(() -> encodeBlock(block, mode, codec));
+        }
+        List<byte[]> blocks = HuffmanBlockCompressor.invokeAll(pool, tasks);
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeLong(data.length);
+            out.writeInt(blockSize);
+            out.writeInt(blockCount);
+            long offset = 0;
+            for (int i = 0; i < blockCount; i++) {
+                offset += blocks.get(i).length;
+                out.writeByte(modes[i]);
+                out.writeLong(offset);
+            }
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by in-memory streams
+        }
+    }
+
+    /**
+     * Decompresses a container written by {@link #compress(byte[])}.
+     *
+     * @param container the container
+     * @return the original bytes
+     * @throws IOException if the container is malformed or corrupt
+     */
+    public byte[] decompress(byte[] container) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(container);
+        DataInputStream in = new DataInputStream(bytes);
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a selective block container.");
+
+        long length = in.readLong();
+        int size = in.readInt();
+        int blockCount = in.readInt();
+        if (length > Integer.MAX_VALUE - 8 || length < 0 || size < 1 || blockCount != (length + size - 1) / size)
+            throw new IOException("Invalid block container header.");
+
+        byte[] modes = new byte[blockCount];
+        long[] ends = new long[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            modes[i] = in.readByte();
+            ends[i] = in.readLong();
+            if (modes[i] < MODE_RAW || modes[i] > MODE_NEW || ends[i] < (i == 0 ? 0 : ends[i - 1]))
+                throw new IOException("Invalid block index.");
+        }
+        int dataStart = container.length - bytes.available();
+        if (blockCount > 0 && ends[blockCount - 1] > container.length - dataStart)
+            throw new IOException("Truncated block container.");
+
+        // Read the codebook headers in order, so reusing blocks know their codebook before decoding starts
+        ByteHuffmanCodec[] codecs = new ByteHuffmanCodec[blockCount];
+        int[] codeStarts = new int[blockCount];
+        ByteHuffmanCodec current = null;
+        for (int i = 0; i < blockCount; i++) {
+            codeStarts[i] = dataStart + (int) (i == 0 ? 0 : ends[i - 1]);
+            if (modes[i] == MODE_NEW) {
+                ByteArrayInputStream header = new ByteArrayInputStream(container, codeStarts[i], dataStart + (int) ends[i] - codeStarts[i]);
+                int available = header.available();
+                current = ByteHuffmanCodec.read(header);
+                codeStarts[i] += available - header.available();
+            } else if (modes[i] == MODE_REUSE && current == null) {
+                throw new IOException("Block " + i + " reuses a codebook before any was written.");
+            }
+            codecs[i] = current;
+        }
+
+        byte[] output = new byte[(int) length];
+        List<Callable<Void>> tasks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            int from = codeStarts[i];
+            int to = dataStart + (int) ends[i];
+            byte mode = modes[i];
+            ByteHuffmanCodec codec = codecs[i];
+            ByteBuffer target = block(output, i);
+            tasks.add(() -> {
+                decodeBlock(container, from, to, mode, codec, target);
+                return null;
+            });
+        }
+
+        try {
+            HuffmanBlockCompressor.invokeAll(pool, tasks);
+        } catch (InvalidEncodedTextException e) {
+            throw new IOException("Corrupt block container.", e);
+        }
+        return output;
+    }
+
+    /**
+     * Gets the number of input bytes per block.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private ByteBuffer block(byte[] data, int index) {
+        int from = index * blockSize;
+        return ByteBuffer.wrap(data, from, (int) Math.min(data.length - from, (long) blockSize));
+    }
+
+    private static byte[] encodeBlock(ByteBuffer block, byte mode, ByteHuffmanCodec codec) throws IOException {
+        if (mode == MODE_RAW) {
+            return Arrays.copyOfRange(block.array(), block.position(), block.limit());
+        } else if (mode == MODE_SINGLE) {
+            return new byte[]{block.get(block.position())};
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.remaining() / 2 + 16);
+        if (mode == MODE_NEW)
+            codec.write(bytes);
+        BitWriter bits = new BitWriter(bytes);
+        codec.encode(block, bits);
+        bits.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void decodeBlock(byte[] container, int from, int to, byte mode, ByteHuffmanCodec codec, ByteBuffer target) {
+        if (mode == MODE_RAW) {
+            if (to - from != target.remaining())
+                throw new InvalidEncodedTextException("Invalid action. A raw block doesn't match the block size. ");
+            target.put(container, from, to - from);
+        } else if (mode == MODE_SINGLE) {
+            if (to - from != 1)
+                throw new InvalidEncodedTextException("Invalid action. A single-symbol block must hold one byte. ");
+            Arrays.fill(target.array(), target.position(), target.limit(), container[from]);
+        } else {
+            codec.decode(new BitReader(ByteBuffer.wrap(container, from, to - from)), target);
+        }
+    }
+
+    /**
+     * Gets the size in bytes of a block with its own codebook, from the code lengths alone so that no codec
+     * is built for blocks that end up stored another way.
+     */
+    private static long newCodebookCost(long[] histogram) {
+        int[] lengths = new int[histogram.length];
+        if (FlatHuffmanTree.of(histogram).codeLengths(lengths) > ByteHuffmanCodec.MAX_CODE_LENGTH) {
+            ByteHuffmanCodec codec = ByteHuffmanCodec.fromHistogram(histogram); // Length-limited codes
+            return codec.getCodebook().getHeaderSize() + (codec.getEncodedBits(histogram) + 7) / 8;
+        }
+
+        long bits = 0;
+        int symbols = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            if (histogram[b] > 0) {
+                bits += histogram[b] * lengths[b];
+                symbols++;
+            }
+        }
+        return 2 + 3L * symbols + (bits + 7) / 8; // Header size of HuffmanCodebook#write
+    }
+
+    /**
+     * Gets the only byte value of a histogram, or -1 if it has none or several.
+     */
+    private static int singleSymbol(long[] histogram) {
+        int symbol = -1;
+        for (int b = 0; b < histogram.length; b++) {
+            if (histogram[b] > 0) {
+                if (symbol >= 0)
+                    return -1;
+                symbol = b;
+            }
+        }
+        return symbol;
+    }
+
+    private static boolean covers(ByteHuffmanCodec codec, long[] histogram) {
+        for (int b = 0; b < histogram.length; b++) {
+            if (histogram[b] > 0 && !codec.contains(b))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,263 @@
+package midtermlabproject3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-trained codebook that short messages reference by ID instead of carrying their own header.
+ *
+ * For messages of tens to hundreds of characters, building a frequency table and sending a codebook header
+ * costs more than the codes save. A static codebook is trained once on a sample corpus and shared ahead of
+ * time, so a message is just the codebook ID, the character count and the packed codes. Characters that
+ * didn't occur in the corpus are written as an escape code followed by the raw 16-bit character.
+ *
+ * The codebook file holds the magic number, the format version, the ID, the escape character and the
+ * canonical codebook header. A message holds the ID and the character count as unsigned varints, then the codes.
+ */
+public final class StaticCodebook {
+    /** Magic number at the start of every codebook file ("HUS1"). */
+    public static final int MAGIC = 0x48555331;
+
+    /** Version of the codebook file format written by {@link #write(OutputStream)}. */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Maximum code length of a trained codebook, which keeps the escape code short. */
+    public static final int MAX_CODE_LENGTH = 24;
+
+    private static final int RAW_CHARACTER_BITS = 16;
+
+    private final int id;
+    private final char escape;
+    private final HuffmanCodebook codebook;
+    private final CodeTable codeTable;
+    private final TableDecoder decoder;
+
+    private StaticCodebook(int id, char escape, HuffmanCodebook codebook) {
+        if (id < 0)
+            throw new IllegalArgumentException("The codebook ID must not be negative.");
+
+        Map<Character, String> huffmanCode = new HashMap<>();
+        codebook.buildCodeMap(huffmanCode);
+        if (!huffmanCode.containsKey(escape) || huffmanCode.size() < 2)
+            throw new IllegalArgumentException("The codebook needs the escape character and at least one other character.");
+
+        this.id = id;
+        this.escape = escape;
+        this.codebook = codebook;
+        this.codeTable = new CodeTable(huffmanCode);
+        this.decoder = new TableDecoder(codebook);
+    }
+
+    /**
+     * Trains a codebook on a sample corpus. The escape character is the highest character that doesn't
+     * occur in the corpus, and its frequency is the number of distinct characters, a rough estimate of how
+     * often new characters turn up.
+     *
+     * @param id the ID that messages use to reference the codebook
+     * @param corpus the sample text, representative of the messages
+     * @return the codebook
+     * @throws IllegalArgumentException if the corpus is empty or uses every character
+     */
+    public static StaticCodebook train(int id, CharSequence corpus) {
+        long[] counts = new FrequencyCounter().count(corpus);
+        Map<Character, Long> frequencyTable = new HashMap<>();
+        int escape = -1;
+        for (int c = counts.length - 1; c >= 0; c--) {
+            if (counts[c] > 0) {
+                frequencyTable.put((char) c, counts[c]);
+            } else if (escape < 0) {
+                escape = c;
+            }
+        }
+        if (frequencyTable.isEmpty())
+            throw new IllegalArgumentException("The corpus is empty.");
+        if (escape < 0 && counts.length <= Character.MAX_VALUE)
+            escape = counts.length; // Every counted character occurs, but higher ones don't
+        if (escape < 0)
+            throw new IllegalArgumentException("The corpus uses every character, so there is no escape character.");
+
+        frequencyTable.put((char) escape, (long) frequencyTable.size());
+        HuffmanCodebook codebook = HuffmanCodebook.fromCodeLengths(LengthLimitedCode.codeLengths(frequencyTable, MAX_CODE_LENGTH));
+        return new StaticCodebook(id, (char) escape, codebook);
+    }
+
+    /**
+     * Reads a codebook file written by {@link #write(OutputStream)}.
+     *
+     * @param in the input stream to read from
+     * @return the codebook
+     * @throws IOException if reading fails, the file isn't a codebook or its version isn't supported
+     */
+    public static StaticCodebook read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a static codebook file.");
+        int version = data.readUnsignedShort();
+        if (version != FORMAT_VERSION)
+            throw new IOException("Unsupported static codebook version " + version + ".");
+
+        int id = data.readInt();
+        char escape = data.readChar();
+        HuffmanCodebook codebook = HuffmanCodebook.read(data);
+        try {
+            return new StaticCodebook(id, escape, codebook);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid static codebook: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the codebook file, see the class description for the layout.
+     *
+     * @param out the output stream to write to
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(FORMAT_VERSION);
+        data.writeInt(id);
+        data.writeChar(escape);
+        codebook.write(data);
+        data.flush();
+    }
+
+    /**
+     * Gets the ID that messages use to reference the codebook.
+     *
+     * @return the codebook ID
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the character whose code marks a raw character.
+     *
+     * @return the escape character
+     */
+    public char getEscape() {
+        return escape;
+    }
+
+    /**
+     * Gets the underlying canonical codebook, including the escape character.
+     *
+     * @return the canonical codebook
+     */
+    public HuffmanCodebook getCodebook() {
+        return codebook;
+    }
+
+    /**
+     * Encodes a message: its codebook ID, its character count and the packed codes.
+     *
+     * @param text the text to encode
+     * @return the encoded message
+     */
+    public byte[] encodeMessage(CharSequence text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 2 + 16);
+        writeVarInt(bytes, id);
+        writeVarInt(bytes, text.length());
+        BitWriter out = new BitWriter(bytes);
+        encode(text, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a message written by {@link #encodeMessage(CharSequence)} with this codebook.
+     *
+     * @param message the encoded message
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the message is malformed or was encoded with another codebook
+     */
+    public String decodeMessage(byte[] message) throws InvalidEncodedTextException {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        if (readVarInt(buffer) != id)
+            throw new InvalidEncodedTextException("Invalid action. The message was encoded with another codebook. ");
+        return decodeBody(buffer);
+    }
+
+    /**
+     * Encodes text into a bit writer owned by the caller. Characters without a code are escaped.
+     *
+     * @param text the text to encode
+     * @param out the bit writer to write to
+     * @return the number of bits written
+     */
+    public long encode(CharSequence text, BitWriter out) {
+        long start = out.getBitsWritten();
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character != escape && codeTable.contains(character)) {
+                codeTable.write(out, character);
+            } else {
+                codeTable.write(out, escape);
+                out.writeBits(character, RAW_CHARACTER_BITS);
+            }
+        }
+        return out.getBitsWritten() - start;
+    }
+
+    /**
+     * Decodes the given number of characters from a bit reader.
+     *
+     * @param in the bit reader to read from
+     * @param length the number of characters to decode
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(BitReader in, int length) throws InvalidEncodedTextException {
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            char character = decoder.decodeSymbol(in);
+            text[i] = character != escape ? character : (char) in.readBits(RAW_CHARACTER_BITS);
+        }
+        return new String(text);
+    }
+
+    /**
+     * Decodes the character count and codes of a message whose ID has already been read.
+     */
+    String decodeBody(ByteBuffer message) throws InvalidEncodedTextException {
+        int length = readVarInt(message);
+        if (length < 0 || length > 8L * message.remaining())
+            throw new InvalidEncodedTextException("Invalid action. The message is shorter than its character count. ");
+        return decode(new BitReader(message), length);
+    }
+
+    /**
+     * Reads an unsigned varint: 7 bits per byte, low bits first, with the high bit set on all but the last byte.
+     */
+    static int readVarInt(ByteBuffer in) throws InvalidEncodedTextException {
+        int value = 0;
+        try {
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+        } catch (BufferUnderflowException e) {
+            // Falls through to the error below
+        }
+        throw new InvalidEncodedTextException("Invalid action. The message header is truncated or malformed. ");
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
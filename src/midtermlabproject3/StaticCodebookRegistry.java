@@ -0,0 +1,67 @@
+package midtermlabproject3;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe set of {@link StaticCodebook}s by ID, used to decode messages that reference their codebook.
+ */
+public class StaticCodebookRegistry {
+    private final Map<Integer, StaticCodebook> codebooks = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a codebook, replacing any codebook with the same ID.
+     *
+     * @param codebook the codebook to add
+     */
+    public void register(StaticCodebook codebook) {
+        codebooks.put(codebook.getId(), codebook);
+    }
+
+    /**
+     * Reads a codebook file and adds the codebook.
+     *
+     * @param file the codebook file written by {@link StaticCodebook#write}
+     * @return the codebook
+     * @throws IOException if reading fails or the file isn't a valid codebook
+     */
+    public StaticCodebook load(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            StaticCodebook codebook = StaticCodebook.read(in);
+            register(codebook);
+            return codebook;
+        }
+    }
+
+    /**
+     * Gets the codebook with the given ID.
+     *
+     * @param id the codebook ID
+     * @return the codebook, or null if none is registered
+     */
+    public StaticCodebook get(int id) {
+        return codebooks.get(id);
+    }
+
+    /**
+     * Decodes a message written by {@link StaticCodebook#encodeMessage} with the codebook it references.
+     *
+     * @param message the encoded message
+     * @return the decoded text
+     * @throws InvalidEncodedTextException if the message is malformed or its codebook isn't registered
+     */
+    public String decodeMessage(byte[] message) throws InvalidEncodedTextException {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        int id = StaticCodebook.readVarInt(buffer);
+        StaticCodebook codebook = codebooks.get(id);
+        if (codebook == null)
+            throw new InvalidEncodedTextException("Invalid action. No static codebook with ID " + id + " is registered. ");
+        return codebook.decodeBody(buffer);
+    }
+}
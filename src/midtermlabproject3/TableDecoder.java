@@ -0,0 +1,268 @@
+package midtermlabproject3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table-driven Huffman decoder that resolves several bits per lookup instead of walking the tree one bit at a time.
+ *
+ * The decoder peeks a window of up to {@code lookupBits} bits and looks it up in a flat {@code int[]}.
+ * Each entry either holds a symbol and its code length, or points to a secondary table
+ * that resolves the next bits of codes longer than the window.
+ */
+public class TableDecoder {
+    /** Default number of bits resolved by the primary table. */
+    public static final int DEFAULT_LOOKUP_BITS = 11;
+
+    // Entry layout: bits 0-7 code length (or secondary table width), bit 8 secondary table flag,
+    // bits 9-31 symbol (or secondary table offset). An entry of 0 marks an invalid code.
+    private static final int LENGTH_MASK = 0xFF;
+    private static final int SUBTABLE_FLAG = 0x100;
+    private static final int VALUE_SHIFT = 9;
+
+    private final int lookupBits;
+    private final int rootBits;
+    private final int maxCodeLength;
+    private int[] table;
+    private int size;
+
+    /**
+     * Constructor for a decoder using the default primary table width.
+     *
+     * @param huffmanCode map of characters to their Huffman codes
+     */
+    public TableDecoder(Map<Character, String> huffmanCode) {
+        this(huffmanCode, DEFAULT_LOOKUP_BITS);
+    }
+
+    /**
+     * Constructor for a decoder of a canonical codebook, using the default primary table width.
+     *
+     * @param codebook the canonical codebook, e.g. read from a header
+     */
+    public TableDecoder(HuffmanCodebook codebook) {
+        this(codebookCodes(codebook), DEFAULT_LOOKUP_BITS);
+    }
+
+    /**
+     * Constructor for a decoder with the given table width.
+     *
+     * @param huffmanCode map of characters to their Huffman codes
+     * @param lookupBits the maximum number of bits resolved per table lookup, from 1 to 16
+     */
+    public TableDecoder(Map<Character, String> huffmanCode, int lookupBits) {
+        if (lookupBits < 1 || lookupBits > 16)
+            throw new IllegalArgumentException("Lookup bits must be between 1 and 16.");
+
+        List<Code> codes = new ArrayList<>();
+        int maxLength = 0;
+        for (Map.Entry<Character, String> entry : huffmanCode.entrySet()) {
+            if (entry.getValue().isEmpty())
+                continue; // A lone symbol has no bits to decode
+
+            codes.add(new Code(entry.getKey(), entry.getValue()));
+            maxLength = Math.max(maxLength, entry.getValue().length());
+        }
+
+        this.lookupBits = lookupBits;
+        this.maxCodeLength = maxLength;
+        this.rootBits = Math.max(1, Math.min(lookupBits, maxLength));
+        this.table = new int[1 << rootBits];
+        this.size = 0;
+        buildTable(codes, rootBits);
+    }
+
+    /**
+     * Decodes the next symbol from the bit reader.
+     *
+     * @param in the bit reader to read from
+     * @return the decoded character
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public char decodeSymbol(BitReader in) throws InvalidEncodedTextException {
+        int width = rootBits;
+        int entry = table[in.peekBits(width)];
+        while ((entry & SUBTABLE_FLAG) != 0) {
+            in.skipBits(width);
+            width = entry & LENGTH_MASK;
+            entry = table[(entry >>> VALUE_SHIFT) + in.peekBits(width)];
+        }
+
+        if (entry == 0)
+            throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+
+        in.skipBits(entry & LENGTH_MASK);
+        return (char) (entry >>> VALUE_SHIFT);
+    }
+
+    /**
+     * Decodes the symbol at the start of a window of bits, for callers that keep their own bit buffer.
+     *
+     * @param window the next bits, left-aligned (the first bit is the most significant); must hold at least
+     *               {@link #getMaxCodeLength()} valid bits
+     * @return the symbol in bits 0-15 and its code length in bits 16-23
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    int decodeWindow(long window) throws InvalidEncodedTextException {
+        int entry = lookupWindow(window);
+        if (entry == 0)
+            throw new InvalidEncodedTextException("Invalid action. The encoded text doesn't match any of the codes. ");
+        return entry;
+    }
+
+    /**
+     * Like {@link #decodeWindow(long)}, but returns 0 instead of throwing if the bits don't match any code.
+     */
+    int lookupWindow(long window) {
+        int width = rootBits;
+        int used = 0;
+        int entry = table[(int) (window >>> (64 - width))];
+        while ((entry & SUBTABLE_FLAG) != 0) {
+            used += width;
+            width = entry & LENGTH_MASK;
+            entry = table[(entry >>> VALUE_SHIFT) + (int) ((window << used) >>> (64 - width))];
+        }
+
+        return entry == 0 ? 0 : (used + (entry & LENGTH_MASK)) << 16 | entry >>> VALUE_SHIFT;
+    }
+
+    /**
+     * Decodes a number of bits from the bit reader.
+     * Trailing bits that don't complete a code are consumed but ignored, like the tree-walking decoder.
+     *
+     * @param in the bit reader to read from
+     * @param bitLength the number of bits to decode
+     * @return string representing the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(BitReader in, long bitLength) throws InvalidEncodedTextException {
+        StringBuilder decodedString = new StringBuilder();
+        long end = in.getBitsRead() + bitLength;
+        while (in.getBitsRead() < end) {
+            long start = in.getBitsRead();
+            char symbol;
+            try {
+                symbol = decodeSymbol(in);
+            } catch (InvalidEncodedTextException e) {
+                if (end - start < maxCodeLength)
+                    break; // Zero padding past the end produced an invalid window
+                throw e;
+            }
+            if (in.getBitsRead() > end)
+                break; // The last code was completed by padding bits
+
+            decodedString.append(symbol);
+        }
+        if (in.getBitsRead() < end)
+            in.skipBits((int) (end - in.getBitsRead()));
+        return decodedString.toString();
+    }
+
+    /**
+     * Decodes bit-packed text.
+     *
+     * @param bits the packed bits to decode
+     * @return string representing the decoded text
+     * @throws InvalidEncodedTextException if the bits don't match any code
+     */
+    public String decode(EncodedBits bits) throws InvalidEncodedTextException {
+        return decode(bits.reader(), bits.getBitLength());
+    }
+
+    /**
+     * Gets the number of bits resolved by the primary table.
+     *
+     * @return the primary table width in bits
+     */
+    public int getLookupBits() {
+        return rootBits;
+    }
+
+    /**
+     * Gets the length of the longest code.
+     *
+     * @return the maximum code length in bits
+     */
+    public int getMaxCodeLength() {
+        return maxCodeLength;
+    }
+
+    /**
+     * Gets the total number of entries in the primary and secondary tables.
+     *
+     * @return the table size
+     */
+    public int getTableSize() {
+        return size;
+    }
+
+    private static Map<Character, String> codebookCodes(HuffmanCodebook codebook) {
+        Map<Character, String> huffmanCode = new HashMap<>();
+        codebook.buildCodeMap(huffmanCode);
+        return huffmanCode;
+    }
+
+    /**
+     * Fills a table of the given width with the codes, recursing into secondary tables for longer codes.
+     *
+     * @param codes the codes to place, relative to the bits already resolved
+     * @param width the width of the table in bits
+     * @return the offset of the table
+     */
+    private int buildTable(List<Code> codes, int width) {
+        int offset = allocate(1 << width);
+
+        List<List<Code>> longer = new ArrayList<>();
+        for (int i = 0; i < (1 << width); i++) {
+            longer.add(null);
+        }
+
+        for (Code code : codes) {
+            int length = code.bits.length();
+            if (length <= width) {
+                int first = Integer.parseInt(code.bits, 2) << (width - length);
+                int entry = (code.symbol << VALUE_SHIFT) | length;
+                for (int i = 0; i < (1 << (width - length)); i++) {
+                    table[offset + first + i] = entry;
+                }
+            } else {
+                int prefix = Integer.parseInt(code.bits.substring(0, width), 2);
+                if (longer.get(prefix) == null)
+                    longer.set(prefix, new ArrayList<>());
+                longer.get(prefix).add(new Code(code.symbol, code.bits.substring(width)));
+            }
+        }
+
+        for (int prefix = 0; prefix < longer.size(); prefix++) {
+            List<Code> suffixes = longer.get(prefix);
+            if (suffixes == null)
+                continue;
+
+            int subWidth = 0;
+            for (Code suffix : suffixes) {
+                subWidth = Math.max(subWidth, suffix.bits.length());
+            }
+            subWidth = Math.min(subWidth, lookupBits);
+            int subOffset = buildTable(suffixes, subWidth);
+            table[offset + prefix] = (subOffset << VALUE_SHIFT) | SUBTABLE_FLAG | subWidth;
+        }
+        return offset;
+    }
+
+    private int allocate(int entries) {
+        int offset = size;
+        size += entries;
+        if (size > table.length)
+            table = Arrays.copyOf(table, Math.max(size, table.length * 2));
+        return offset;
+    }
+
+    /**
+     * Code still to be placed in the table: a symbol and the remaining bits of its code.
+     */
+    private record Code(char symbol, String bits) {
+    }
+}
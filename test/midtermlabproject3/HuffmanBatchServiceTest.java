@@ -0,0 +1,50 @@
+package midtermlabproject3;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks for {@link HuffmanBatchService}, runnable without a test framework.
+ *
+ * Usage: {@code java -ea midtermlabproject3.HuffmanBatchServiceTest}
+ */
+public class HuffmanBatchServiceTest {
+
+    public static void main(String[] args) {
+        failedEncodeDoesNotLeakIntoNextRequest();
+        System.out.println("HuffmanBatchServiceTest passed");
+    }
+
+    /**
+     * A failing encode followed by a valid one in the same batch: the valid request must get exactly the bits
+     * that {@link HuffmanCodec#encode(CharSequence)} produces on its own.
+     */
+    static void failedEncodeDoesNotLeakIntoNextRequest() {
+        HuffmanCodec codec = HuffmanCodec.of("aaaabbc");
+        // One worker on a single thread that only starts after both requests are queued, so they share a batch
+        ExecutorService executor = Executors.newSingleThreadExecutor(HuffmanBatchService::newDaemonThread);
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        executor.execute(gate::join);
+        try (HuffmanBatchService service = new HuffmanBatchService(codec, executor, HuffmanBatchService.DEFAULT_MAX_BATCH_SIZE, 1)) {
+            // Long enough to write whole bytes and leave partial bits before reaching the unknown character
+            CompletableFuture<EncodedBits> failing = service.encode("abcabcabcab" + 'z');
+            CompletableFuture<EncodedBits> valid = service.encode("abc");
+            gate.complete(null);
+
+            check(failing.handle((bits, e) -> e).join() instanceof CompletionException, "the invalid encode fails");
+            EncodedBits expected = codec.encode("abc");
+            EncodedBits actual = valid.join();
+            check(actual.getBitLength() == expected.getBitLength(), "bit length " + actual.getBitLength() + " != " + expected.getBitLength());
+            check(actual.toString().equals(expected.toString()), "bits " + actual + " != " + expected);
+            check(actual.getData().length == expected.getData().length, actual.getData().length + " bytes != " + expected.getData().length);
+            check(codec.decode(actual, 3).equals("abc"), "decodes back to abc");
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,68 @@
+package midtermlabproject3;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Checks for {@link HuffmanFileCompressor}, runnable without a test framework.
+ *
+ * Usage: {@code java -ea midtermlabproject3.HuffmanFileCompressorTest}
+ */
+public class HuffmanFileCompressorTest {
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("huffman-test");
+        try {
+            roundTrip(directory);
+            truncatedFileFails(directory);
+        } finally {
+            for (String name : new String[]{"compressed", "decompressed"}) {
+                Files.deleteIfExists(directory.resolve(name));
+            }
+            Files.delete(directory);
+        }
+        System.out.println("HuffmanFileCompressorTest passed");
+    }
+
+    /**
+     * A compressed file decompresses to the original bytes.
+     */
+    static void roundTrip(Path directory) throws IOException {
+        HuffmanFileCompressor compressor = new HuffmanFileCompressor();
+        Path input = Paths.get("res/file6.txt");
+        compressor.compress(input, directory.resolve("compressed"));
+        compressor.decompress(directory.resolve("compressed"), directory.resolve("decompressed"));
+        check(Arrays.equals(Files.readAllBytes(input), Files.readAllBytes(directory.resolve("decompressed"))), "the round trip is byte-exact");
+    }
+
+    /**
+     * A compressed file with its last 200 bytes cut off is reported as corrupt instead of being decoded
+     * from the zero bits past its end.
+     */
+    static void truncatedFileFails(Path directory) throws IOException {
+        HuffmanFileCompressor compressor = new HuffmanFileCompressor();
+        Path compressed = directory.resolve("compressed");
+        compressor.compress(Paths.get("res/file6.txt"), compressed);
+        try (FileChannel channel = FileChannel.open(compressed, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 200);
+        }
+
+        try {
+            compressor.decompress(compressed, directory.resolve("decompressed"));
+        } catch (IOException e) {
+            check(e.getMessage().startsWith("Corrupt compressed file"), "unexpected message " + e.getMessage());
+            return;
+        }
+        throw new AssertionError("the truncated file was decompressed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}